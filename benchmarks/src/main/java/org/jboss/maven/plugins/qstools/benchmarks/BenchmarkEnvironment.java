@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.RepositorySystem;
+import org.codehaus.plexus.ContainerConfiguration;
+import org.codehaus.plexus.DefaultContainerConfiguration;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.jboss.jdf.stacks.model.Stacks;
+import org.jboss.jdf.stacks.parser.Parser;
+import org.jboss.maven.plugins.qstools.BomIndex;
+import org.jboss.maven.plugins.qstools.PomCache;
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.RunMetrics;
+import org.jboss.maven.plugins.qstools.RunScope;
+import org.jboss.maven.plugins.qstools.checkers.AbstractCheckstyleChecker;
+import org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker;
+import org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker;
+import org.jboss.maven.plugins.qstools.checkers.CombinedCheckstyleRun;
+import org.jboss.maven.plugins.qstools.checkers.GroupIdChecker;
+import org.jboss.maven.plugins.qstools.checkers.UnusedPropertiesChecker;
+
+/**
+ * Runs the checkers outside of Maven: a Plexus container with the plugin components, a Maven session and the reactor
+ * projects read from the quickstarts directory.
+ *
+ * The session is offline: the Stacks BOMs must be in the local repository, like the ones written by
+ * {@link ReactorGenerator}.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class BenchmarkEnvironment {
+
+    private final DefaultPlexusContainer container;
+
+    private final MavenSession mavenSession;
+
+    private final List<MavenProject> reactorProjects = new ArrayList<MavenProject>();
+
+    private final Log log = new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "qstools"));
+
+    private final Stacks stacks;
+
+    /**
+     * @param quickstartsDir the directory with the parent pom.xml
+     * @param localRepository where the BOMs are resolved from and the plugin caches are stored
+     * @param stacksFile the Stacks file with the BOMs
+     * @param combinedCheckstyle if the Checkstyle checkers share a single Checkstyle execution
+     */
+    public BenchmarkEnvironment(File quickstartsDir, File localRepository, File stacksFile, boolean combinedCheckstyle) throws Exception {
+        ContainerConfiguration configuration = new DefaultContainerConfiguration().setClassPathScanning(PlexusConstants.SCANNING_INDEX).setAutoWiring(true)
+            .setName("qstools-benchmarks");
+        container = new DefaultPlexusContainer(configuration);
+        container.getContext().put(GroupIdChecker.GROUPID, "org.jboss.as.quickstarts");
+        container.getContext().put(AbstractProjectChecker.THREADS, 1);
+        container.getContext().put(AbstractCheckstyleChecker.COMBINED, combinedCheckstyle);
+        container.getContext().put(AbstractCheckstyleChecker.EXCLUDES, "");
+
+        InputStream is = new FileInputStream(stacksFile);
+        try {
+            stacks = new Parser().parse(is);
+        } finally {
+            is.close();
+        }
+        readProjects(quickstartsDir.getAbsoluteFile());
+        DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setBaseDirectory(quickstartsDir.getAbsoluteFile());
+        request.setLocalRepository(container.lookup(RepositorySystem.class).createLocalRepository(localRepository.getAbsoluteFile()));
+        request.setOffline(true);
+        mavenSession = new MavenSession(container, request, new DefaultMavenExecutionResult(), reactorProjects);
+    }
+
+    private void readProjects(File dir) throws Exception {
+        File pomFile = new File(dir, "pom.xml");
+        InputStream is = new FileInputStream(pomFile);
+        Model model;
+        try {
+            model = new MavenXpp3Reader().read(is);
+        } finally {
+            is.close();
+        }
+        if (model.getBuild() == null) {
+            model.setBuild(new Build());
+        }
+        // Checkstyle needs the build directories
+        model.getBuild().setDirectory(new File(dir, "target").getPath());
+        model.getBuild().setOutputDirectory(new File(dir, "target/classes").getPath());
+        model.getBuild().setTestOutputDirectory(new File(dir, "target/test-classes").getPath());
+        model.getBuild().setSourceDirectory(new File(dir, "src/main/java").getPath());
+        model.getBuild().setTestSourceDirectory(new File(dir, "src/test/java").getPath());
+        MavenProject project = new MavenProject(model);
+        project.setFile(pomFile);
+        reactorProjects.add(project);
+        for (String module : model.getModules()) {
+            readProjects(new File(dir, module));
+        }
+    }
+
+    /**
+     * @param threads how many threads check the reactor projects of each pom.xml checker
+     */
+    public void setThreads(int threads) {
+        container.getContext().put(AbstractProjectChecker.THREADS, threads);
+    }
+
+    /**
+     * Discard the previous run caches and prepare the checkers to run, like the report does before running them
+     */
+    public void startRun() throws Exception {
+        container.lookup(RunScope.class).begin();
+        container.lookup(RunMetrics.class).open(10);
+        container.lookup(BomIndex.class).open(stacks, getRootProject(), mavenSession, log);
+        for (QSChecker checker : getCheckers()) {
+            if (checker instanceof AbstractPomRuleChecker) {
+                container.lookup(PomCache.class).registerPaths(((AbstractPomRuleChecker) checker).getSubscribedPaths());
+            } else if (checker instanceof UnusedPropertiesChecker) {
+                container.lookup(PomCache.class).registerPaths(UnusedPropertiesChecker.PROPERTIES_PATH);
+                container.lookup(PomCache.class).registerValues();
+            } else if (checker instanceof AbstractProjectChecker) {
+                container.lookup(PomCache.class).useDocuments();
+            }
+            if (checker instanceof AbstractCheckstyleChecker) {
+                container.lookup(CombinedCheckstyleRun.class).register((AbstractCheckstyleChecker) checker);
+            }
+        }
+    }
+
+    /**
+     * End the run, like the goals do. The caches shared by the runs stay warm, like in a persistent Maven daemon
+     */
+    public void clear() throws Exception {
+        container.lookup(RunScope.class).end();
+    }
+
+    /**
+     * @return all checkers, sorted by name
+     */
+    public List<QSChecker> getCheckers() throws Exception {
+        List<QSChecker> checkers = new ArrayList<QSChecker>(container.lookupList(QSChecker.class));
+        Collections.sort(checkers, new Comparator<QSChecker>() {
+
+            @Override
+            public int compare(QSChecker o1, QSChecker o2) {
+                return o1.getClass().getSimpleName().compareTo(o2.getClass().getSimpleName());
+            }
+        });
+        return checkers;
+    }
+
+    /**
+     * @param name the checker class simple name. Ex: DependencyChecker
+     */
+    public QSChecker getChecker(String name) throws Exception {
+        for (QSChecker checker : getCheckers()) {
+            if (checker.getClass().getSimpleName().equals(name)) {
+                return checker;
+            }
+        }
+        throw new IllegalArgumentException("There is no checker named " + name);
+    }
+
+    public <T> T lookup(Class<T> role) throws Exception {
+        return container.lookup(role);
+    }
+
+    public MavenSession getMavenSession() {
+        return mavenSession;
+    }
+
+    public List<MavenProject> getReactorProjects() {
+        return reactorProjects;
+    }
+
+    public MavenProject getRootProject() {
+        return reactorProjects.get(0);
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * Discard the caches and the container
+     */
+    public void close() throws Exception {
+        clear();
+        container.dispose();
+    }
+
+}
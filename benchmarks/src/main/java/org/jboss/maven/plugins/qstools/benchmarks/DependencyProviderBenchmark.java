@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.project.MavenProject;
+import org.jboss.maven.plugins.qstools.DependencyProvider;
+import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Reads every dependency of a pom.xml with {@link DependencyProvider#getDependencyFromNode(MavenProject, Node)}. Each
+ * dependency version is a property, so each one is interpolated.
+ *
+ * {@link #getDependencyFromNode(Blackhole)} starts from an empty cache, like the first checker reading a pom.xml.
+ * {@link #getDependencyFromNodeCached(Blackhole)} reads the dependencies already read, like the checkers after it.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DependencyProviderBenchmark {
+
+    /**
+     * How many dependencies the pom.xml declares
+     */
+    @Param({ "5", "500" })
+    public int dependencies;
+
+    private final DependencyProvider dependencyProvider = new DependencyProvider();
+
+    private MavenProject project;
+
+    private final List<Node> dependencyNodes = new ArrayList<Node>();
+
+    @Setup
+    public void setUp() throws Exception {
+        String pom = ReactorGenerator.createPom(dependencies);
+        project = new MavenProject(new MavenXpp3Reader().read(new StringReader(pom)));
+        Document doc = PositionalXMLReader.readXML(new ByteArrayInputStream(pom.getBytes("UTF-8")));
+        NodeList nodes = doc.getElementsByTagName("dependency");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            dependencyNodes.add(nodes.item(i));
+        }
+    }
+
+    @Benchmark
+    public void getDependencyFromNode(Blackhole blackhole) throws Exception {
+        dependencyProvider.clear();
+        for (Node dependency : dependencyNodes) {
+            blackhole.consume(dependencyProvider.getDependencyFromNode(project, dependency));
+        }
+    }
+
+    @Benchmark
+    public void getDependencyFromNodeCached(Blackhole blackhole) throws Exception {
+        for (Node dependency : dependencyNodes) {
+            blackhole.consume(dependencyProvider.getDependencyFromNode(project, dependency));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.maven.plugins.qstools.xml.PositionalDocument;
+import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Parses a small and a very large pom.xml with the {@link PositionalXMLReader}
+ *
+ * @author Rafael Benevides
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PositionalXMLReaderBenchmark {
+
+    /**
+     * How many dependencies the pom.xml declares
+     */
+    @Param({ "5", "5000" })
+    public int dependencies;
+
+    private byte[] pom;
+
+    @Setup
+    public void setUp() throws Exception {
+        pom = ReactorGenerator.createPom(dependencies).getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public Document readXML() throws Exception {
+        return PositionalXMLReader.readXML(new ByteArrayInputStream(pom));
+    }
+
+    @Benchmark
+    public PositionalDocument read() throws Exception {
+        return PositionalXMLReader.read(new ByteArrayInputStream(pom));
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+import org.jboss.maven.plugins.qstools.PomCache;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker;
+import org.jboss.maven.plugins.qstools.checkers.CheckContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Calls {@link AbstractProjectChecker#processProject(MavenProject, CheckContext, org.w3c.dom.Document, Map)} of a pom.xml
+ * checker for each quickstart. The pom.xml files are parsed once by the first run, so only the checker itself is measured.
+ *
+ * The MavenCentralRepositoryChecker isn't included: it mostly waits for Maven Central.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ProcessProjectBenchmark extends QuickstartsBenchmark {
+
+    @Param({ "BomVersionChecker", "DependencyChecker", "DuplicateDependencyChecker", "DuplicatePropertiesChecker", "FinalNameChecker", "GroupIdChecker",
+        "LicenseChecker", "ModuleDefinedChecker", "PomElementOrderChecker", "PropertiesNameChecker", "ReadmeChecker", "SameVersionChecker" })
+    public String checkerName;
+
+    private AbstractProjectChecker checker;
+
+    private PomCache pomCache;
+
+    private CheckContext checkContext;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.benchmarks.QuickstartsBenchmark#prepare()
+     */
+    @Override
+    protected void prepare() throws Exception {
+        checker = (AbstractProjectChecker) environment.getChecker(checkerName);
+        pomCache = environment.lookup(PomCache.class);
+        checkContext = new CheckContext(environment.getMavenSession(), environment.getReactorProjects(), environment.getLog());
+        // The first run fills the POM cache
+        environment.startRun();
+        check(checker);
+    }
+
+    @Benchmark
+    public void processProject(Blackhole blackhole) throws Exception {
+        for (MavenProject project : environment.getReactorProjects()) {
+            Map<String, List<Violation>> results = new TreeMap<String, List<Violation>>();
+            checker.processProject(project, checkContext, pomCache.getDocument(project), results);
+            blackhole.consume(results);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.QSCheckerException;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writes the quickstarts of the {@link ReactorGenerator} to a temporary directory and prepares a
+ * {@link BenchmarkEnvironment} to check them.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@State(Scope.Benchmark)
+public abstract class QuickstartsBenchmark {
+
+    /**
+     * All versions are benchmarked with the same quickstarts
+     */
+    private static final long SEED = 1;
+
+    /**
+     * How many Maven projects are checked
+     */
+    @Param({ "10", "100" })
+    public int modules;
+
+    protected BenchmarkEnvironment environment;
+
+    private File dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = File.createTempFile("qstools-benchmarks", "");
+        dir.delete();
+        File quickstartsDir = new File(dir, "quickstarts");
+        File localRepository = new File(dir, "repository");
+        File stacksFile = new File(dir, "stacks.yaml");
+        new ReactorGenerator(SEED).generate(quickstartsDir, modules, localRepository, stacksFile);
+        environment = new BenchmarkEnvironment(quickstartsDir, localRepository, stacksFile, isCombinedCheckstyle());
+        prepare();
+    }
+
+    /**
+     * Called once the environment is ready
+     */
+    protected void prepare() throws Exception {
+    }
+
+    /**
+     * @return if the Checkstyle checkers share a single Checkstyle execution
+     */
+    protected boolean isCombinedCheckstyle() {
+        return false;
+    }
+
+    /**
+     * Run the checker on all quickstarts, with the run scoped caches the report would have
+     */
+    protected Map<String, List<Violation>> check(QSChecker checker) throws QSCheckerException {
+        return checker.check(environment.getRootProject(), environment.getMavenSession(), environment.getReactorProjects(), environment.getLog());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+}
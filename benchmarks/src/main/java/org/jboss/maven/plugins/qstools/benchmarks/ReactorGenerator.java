@@ -0,0 +1,505 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes synthetic quickstarts that look like the real ones: a parent pom.xml with the quickstarts as modules, each one
+ * with a pom.xml importing BOMs, a README.md and Java sources. About one in ten quickstarts has an EAR layout, with an
+ * EJB, a WAR and an EAR module.
+ *
+ * The files have deliberate violations of every checker, at a fixed rate. The same seed and number of modules always
+ * write the same files, so runs with different plugin versions check exactly the same quickstarts.
+ *
+ * It also writes the Stacks file and the BOMs the quickstarts import, so the BOM checkers work without network.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class ReactorGenerator {
+
+    public static final String GROUP_ID = "org.jboss.as.quickstarts";
+
+    public static final String VERSION = "1.0.0";
+
+    private static final String BOM_VERSION = "1.0.4.Final";
+
+    private static final String[] BOMS = new String[] { "jboss-javaee-6.0-with-tools", "jboss-javaee-6.0-with-hibernate", "jboss-javaee-6.0-with-security" };
+
+    /**
+     * groupId, artifactId, version property and the index of the BOM that manages it, or -1
+     */
+    private static final String[][] DEPENDENCIES = new String[][] {
+        { "org.jboss.spec.javax.servlet", "jboss-servlet-api_3.0_spec", "version.jboss.spec.javaee.6.0", "0" },
+        { "org.jboss.spec.javax.ejb", "jboss-ejb-api_3.1_spec", "version.jboss.spec.javaee.6.0", "0" },
+        { "org.jboss.spec.javax.faces", "jboss-jsf-api_2.1_spec", "version.jboss.spec.javaee.6.0", "0" },
+        { "org.jboss.spec.javax.ws.rs", "jboss-jaxrs-api_1.1_spec", "version.jboss.spec.javaee.6.0", "0" },
+        { "javax.enterprise", "cdi-api", "version.cdi", "0" },
+        { "junit", "junit", "version.junit", "0" },
+        { "org.jboss.arquillian.junit", "arquillian-junit-container", "version.jboss.arquillian", "0" },
+        { "org.jboss.arquillian.protocol", "arquillian-protocol-servlet", "version.jboss.arquillian", "0" },
+        { "org.hibernate", "hibernate-core", "version.hibernate", "1" },
+        { "org.hibernate", "hibernate-validator", "version.hibernate.validator", "1" },
+        { "org.hibernate.javax.persistence", "hibernate-jpa-2.0-api", "version.hibernate.jpa", "1" },
+        { "org.picketlink", "picketlink-api", "version.picketlink", "2" },
+        { "com.sun.faces", "jsf-impl", "version.com.sun.faces.jsf.impl", "-1" },
+        { "org.jboss.weld.servlet", "weld-servlet", "version.jboss.weld", "-1" },
+        { "commons-lang", "commons-lang", "version.commons.lang", "-1" },
+        { "org.apache.deltaspike.core", "deltaspike-core-api", "version.deltaspike", "-1" } };
+
+    /**
+     * groupId, artifactId and version property
+     */
+    private static final String[][] PLUGINS = new String[][] { { "org.apache.maven.plugins", "maven-compiler-plugin", "version.compiler.plugin" },
+        { "org.apache.maven.plugins", "maven-surefire-plugin", "version.surefire.plugin" }, { "org.jboss.as.plugins", "jboss-as-maven-plugin", "version.jboss.maven.plugin" } };
+
+    private static final String[] TECHNOLOGIES = new String[] { "CDI", "EJB", "JPA", "JSF", "JAX-RS", "Servlet", "Arquillian", "Bean Validation" };
+
+    private static final String LICENSE_HEADER = "/*\n"
+        + " * JBoss, Home of Professional Open Source\n"
+        + " * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual\n"
+        + " * contributors by the @authors tag. See the copyright.txt in the\n"
+        + " * distribution for a full listing of individual contributors.\n"
+        + " *\n"
+        + " * Licensed under the Apache License, Version 2.0 (the \"License\");\n"
+        + " * you may not use this file except in compliance with the License.\n"
+        + " * You may obtain a copy of the License at\n"
+        + " * http://www.apache.org/licenses/LICENSE-2.0\n"
+        + " * Unless required by applicable law or agreed to in writing, software\n"
+        + " * distributed under the License is distributed on an \"AS IS\" BASIS,\n"
+        + " * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.\n"
+        + " * See the License for the specific language governing permissions and\n"
+        + " * limitations under the License.\n"
+        + " */\n";
+
+    private static final String LICENSES = "    <licenses>\n"
+        + "        <license>\n"
+        + "            <name>Apache License, Version 2.0</name>\n"
+        + "            <url>http://www.apache.org/licenses/LICENSE-2.0.html</url>\n"
+        + "            <distribution>repo</distribution>\n"
+        + "        </license>\n"
+        + "    </licenses>\n";
+
+    /**
+     * One violation of each kind every VIOLATION_RATE files
+     */
+    private static final int VIOLATION_RATE = 10;
+
+    private final Random random;
+
+    public ReactorGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Write the quickstarts, the Stacks file and the BOMs
+     *
+     * @param dir where the quickstarts are written
+     * @param modules how many Maven projects, including the parent. From 10 to a few thousands
+     * @param localRepository where the BOMs are written
+     * @param stacksFile where the Stacks file is written
+     */
+    public void generate(File dir, int modules, File localRepository, File stacksFile) throws IOException {
+        writeStacks(stacksFile);
+        writeBoms(localRepository);
+        List<String> quickstarts = new ArrayList<String>();
+        int projects = 1;
+        while (projects < modules) {
+            String name = String.format("quickstart%04d", quickstarts.size());
+            // An EAR quickstart is 4 projects: the quickstart, the EJB, the WAR and the EAR
+            if (modules - projects >= 4 && random.nextInt(10) == 0) {
+                writeEarQuickstart(new File(dir, name), name);
+                projects += 4;
+            } else {
+                writeQuickstart(new File(dir, name), name, random.nextInt(10) == 0 ? "jar" : "war");
+                projects++;
+            }
+            quickstarts.add(name);
+        }
+        if (violation()) {
+            // A quickstart that isn't a module yet
+            writeQuickstart(new File(dir, "wip-quickstart"), "wip-quickstart", "war");
+        }
+        write(new File(dir, "pom.xml"), createParentPom("quickstart-parent", quickstarts));
+    }
+
+    private void writeEarQuickstart(File dir, String name) throws IOException {
+        List<String> modules = Arrays.asList("ejb", "web", "ear");
+        write(new File(dir, "pom.xml"), createParentPom(name, modules));
+        writeReadme(dir, name);
+        writeSources(new File(dir, "ejb"), name + "-ejb", "ejb", createModulePom(name, name + "-ejb", "ejb"));
+        writeSources(new File(dir, "web"), name + "-web", "web", createModulePom(name, name + "-web", "war"));
+        write(new File(dir, "ear/pom.xml"), createModulePom(name, name + "-ear", "ear"));
+    }
+
+    private void writeQuickstart(File dir, String name, String packaging) throws IOException {
+        write(new File(dir, "pom.xml"), createModulePom("quickstart-parent", name, packaging));
+        writeReadme(dir, name);
+        writeSources(dir, name, "service", null);
+    }
+
+    /**
+     * @return true once every {@link #VIOLATION_RATE} calls, on average
+     */
+    private boolean violation() {
+        return random.nextInt(VIOLATION_RATE) == 0;
+    }
+
+    private String createParentPom(String artifactId, List<String> modules) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append(LICENSE_HEADER.replace("/*", "<!--").replace(" */", "-->"));
+        sb.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+        sb.append("    xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n");
+        sb.append("    <modelVersion>4.0.0</modelVersion>\n");
+        if (!artifactId.equals("quickstart-parent")) {
+            appendParent(sb, "quickstart-parent");
+        } else {
+            sb.append("    <groupId>").append(GROUP_ID).append("</groupId>\n");
+            sb.append("    <version>").append(VERSION).append("</version>\n");
+        }
+        sb.append("    <artifactId>").append(artifactId).append("</artifactId>\n");
+        sb.append("    <packaging>pom</packaging>\n");
+        sb.append("    <name>JBoss AS Quickstarts: ").append(artifactId).append("</name>\n");
+        sb.append(LICENSES);
+        sb.append("    <modules>\n");
+        for (String module : modules) {
+            sb.append("        <module>").append(module).append("</module>\n");
+        }
+        sb.append("    </modules>\n");
+        if (artifactId.equals("quickstart-parent")) {
+            sb.append("    <properties>\n");
+            sb.append("        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n");
+            sb.append("        <version.jboss.bom>").append(BOM_VERSION).append("</version.jboss.bom>\n");
+            sb.append("    </properties>\n");
+        }
+        sb.append("</project>\n");
+        return sb.toString();
+    }
+
+    private String createModulePom(String parentArtifactId, String artifactId, String packaging) {
+        StringBuilder properties = new StringBuilder();
+        StringBuilder dependencyManagement = new StringBuilder();
+        StringBuilder dependencies = new StringBuilder();
+        StringBuilder build = new StringBuilder();
+
+        // BOM imports. The first BOM manages the Java EE APIs, so it is always imported
+        List<Integer> boms = new ArrayList<Integer>();
+        boms.add(0);
+        for (int i = 1; i < BOMS.length; i++) {
+            if (random.nextInt(3) == 0) {
+                boms.add(i);
+            }
+        }
+        for (int bom : boms) {
+            // An old BOM version
+            String version = violation() ? "1.0.0.Final" : "${version.jboss.bom}";
+            appendDependency(dependencyManagement, "org.jboss.bom", BOMS[bom], version, "pom", "import", "            ");
+        }
+        if (violation()) {
+            // A BOM that isn't a JBoss BOM
+            appendDependency(dependencyManagement, "org.apache.deltaspike.distribution", "distributions-bom", "${version.deltaspike}", "pom", "import", "            ");
+            properties.append("        <version.deltaspike>0.5</version.deltaspike>\n");
+        }
+
+        List<String[]> shuffled = new ArrayList<String[]>(Arrays.asList(DEPENDENCIES));
+        Collections.shuffle(shuffled, random);
+        List<String[]> used = shuffled.subList(0, 3 + random.nextInt(6));
+        List<String> declaredProperties = new ArrayList<String>();
+        for (String[] dependency : used) {
+            int bom = Integer.parseInt(dependency[3]);
+            boolean managed = bom >= 0 && boms.contains(bom);
+            String version = null;
+            // Versions of managed dependencies are a violation
+            if (!managed || violation()) {
+                // Not using the recommended property name is a violation
+                String property = violation() ? "version." + dependency[1] : dependency[2];
+                version = "${" + property + "}";
+                if (!declaredProperties.contains(property)) {
+                    declaredProperties.add(property);
+                    properties.append("        <").append(property).append(">1.0.").append(random.nextInt(10)).append(".Final</").append(property).append(">\n");
+                }
+            }
+            String scope = dependency[1].startsWith("junit") || dependency[1].startsWith("arquillian") ? "test" : "provided";
+            appendDependency(dependencies, dependency[0], dependency[1], version, null, scope, "        ");
+            if (violation() && violation()) {
+                // Declared twice
+                appendDependency(dependencies, dependency[0], dependency[1], version, null, scope, "        ");
+            }
+        }
+        if (violation()) {
+            properties.append("        <version.unused>1.0</version.unused>\n");
+        }
+        if (violation()) {
+            // Declared twice
+            properties.append("        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n");
+            properties.append("        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n");
+        }
+
+        if (!violation()) {
+            build.append("        <finalName>${project.artifactId}</finalName>\n");
+        }
+        boolean filtering = random.nextInt(5) == 0;
+        if (filtering) {
+            // Properties only used by the filtered resources
+            properties.append("        <app.title>").append(artifactId).append("</app.title>\n");
+            build.append("        <resources>\n");
+            build.append("            <resource>\n");
+            build.append("                <directory>src/main/resources</directory>\n");
+            build.append("                <filtering>true</filtering>\n");
+            build.append("            </resource>\n");
+            build.append("        </resources>\n");
+        }
+        build.append("        <plugins>\n");
+        // The packaging plugin, which the finalName is checked for
+        String packagingPlugin = "maven-" + packaging + "-plugin";
+        String packagingProperty = "version." + packaging + ".plugin";
+        properties.append("        <").append(packagingProperty).append(">2.").append(random.nextInt(10)).append("</").append(packagingProperty).append(">\n");
+        build.append("            <plugin>\n");
+        build.append("                <artifactId>").append(packagingPlugin).append("</artifactId>\n");
+        build.append("                <version>${").append(packagingProperty).append("}</version>\n");
+        build.append("            </plugin>\n");
+        for (String[] plugin : PLUGINS) {
+            if (random.nextBoolean()) {
+                properties.append("        <").append(plugin[2]).append(">2.").append(random.nextInt(10)).append("</").append(plugin[2]).append(">\n");
+                build.append("            <plugin>\n");
+                build.append("                <groupId>").append(plugin[0]).append("</groupId>\n");
+                build.append("                <artifactId>").append(plugin[1]).append("</artifactId>\n");
+                build.append("                <version>${").append(plugin[2]).append("}</version>\n");
+                build.append("            </plugin>\n");
+            }
+        }
+        build.append("        </plugins>\n");
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        if (!violation()) {
+            sb.append(LICENSE_HEADER.replace("/*", "<!--").replace(" */", "-->"));
+        }
+        sb.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+        sb.append("    xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n");
+        sb.append("    <modelVersion>4.0.0</modelVersion>\n");
+        appendParent(sb, parentArtifactId);
+        if (violation()) {
+            sb.append("    <groupId>org.other</groupId>\n");
+        }
+        sb.append("    <artifactId>").append(artifactId).append("</artifactId>\n");
+        if (violation()) {
+            sb.append("    <version>1.0.1</version>\n");
+        }
+        sb.append("    <packaging>").append(packaging).append("</packaging>\n");
+        sb.append("    <name>JBoss AS Quickstarts: ").append(artifactId).append("</name>\n");
+        if (!violation()) {
+            sb.append(LICENSES);
+        }
+        String propertiesXml = "    <properties>\n" + properties + "    </properties>\n";
+        String dependenciesXml = "    <dependencies>\n" + dependencies + "    </dependencies>\n";
+        boolean outOfOrder = violation();
+        if (!outOfOrder) {
+            sb.append(propertiesXml);
+        }
+        sb.append("    <dependencyManagement>\n");
+        sb.append("        <dependencies>\n").append(dependencyManagement).append("        </dependencies>\n");
+        sb.append("    </dependencyManagement>\n");
+        sb.append(dependenciesXml);
+        if (outOfOrder) {
+            sb.append(propertiesXml);
+        }
+        sb.append("    <build>\n").append(build).append("    </build>\n");
+        sb.append("</project>\n");
+        return sb.toString();
+    }
+
+    private void appendParent(StringBuilder sb, String parentArtifactId) {
+        sb.append("    <parent>\n");
+        sb.append("        <groupId>").append(GROUP_ID).append("</groupId>\n");
+        sb.append("        <artifactId>").append(parentArtifactId).append("</artifactId>\n");
+        sb.append("        <version>").append(VERSION).append("</version>\n");
+        sb.append("    </parent>\n");
+    }
+
+    private static void appendDependency(StringBuilder sb, String groupId, String artifactId, String version, String type, String scope, String indentation) {
+        sb.append(indentation).append("<dependency>\n");
+        sb.append(indentation).append("    <groupId>").append(groupId).append("</groupId>\n");
+        sb.append(indentation).append("    <artifactId>").append(artifactId).append("</artifactId>\n");
+        if (version != null) {
+            sb.append(indentation).append("    <version>").append(version).append("</version>\n");
+        }
+        if (type != null) {
+            sb.append(indentation).append("    <type>").append(type).append("</type>\n");
+        }
+        sb.append(indentation).append("    <scope>").append(scope).append("</scope>\n");
+        sb.append(indentation).append("</dependency>\n");
+    }
+
+    private void writeReadme(File dir, String name) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        // A title that doesn't match the folder
+        String title = violation() ? name.toUpperCase() : name;
+        sb.append(title).append(": A synthetic quickstart\n");
+        sb.append("=================================\n");
+        String[] metadata = new String[] { "Author: JBoss", "Level: Intermediate", "Technologies: " + TECHNOLOGIES[random.nextInt(TECHNOLOGIES.length)],
+            "Summary: Shows how to use " + TECHNOLOGIES[random.nextInt(TECHNOLOGIES.length)], "Target Product: EAP",
+            "Source: <https://github.com/jboss-jdf/jboss-as-quickstart/>" };
+        for (String line : metadata) {
+            // Missing metadata
+            if (!violation()) {
+                sb.append(line).append("\n");
+            }
+        }
+        sb.append("\nWhat is it?\n-----------\n\n");
+        int sentences = 5 + random.nextInt(20);
+        for (int i = 0; i < sentences; i++) {
+            sb.append("This quickstart was generated to check the quickstarts tools at scale. ");
+        }
+        sb.append("\n");
+        write(new File(dir, "README.md"), sb.toString());
+    }
+
+    private void writeSources(File dir, String name, String subpackage, String pom) throws IOException {
+        if (pom != null) {
+            write(new File(dir, "pom.xml"), pom);
+        }
+        String packageName = GROUP_ID + "." + name.replace("-", "_") + "." + subpackage;
+        File sourceDir = new File(dir, "src/main/java/" + packageName.replace('.', '/'));
+        int classes = 1 + random.nextInt(4);
+        for (int i = 0; i < classes; i++) {
+            String className = "Service" + i;
+            StringBuilder sb = new StringBuilder();
+            if (!violation()) {
+                sb.append(LICENSE_HEADER);
+            }
+            sb.append("package ").append(packageName).append(";\n\n");
+            sb.append("import java.util.logging.Logger;\n\n");
+            sb.append("public class ").append(className).append(" {\n\n");
+            sb.append("    private static final Logger log = Logger.getLogger(").append(className).append(".class.getName());\n\n");
+            int methods = 1 + random.nextInt(8);
+            for (int method = 0; method < methods; method++) {
+                sb.append("    public String greet").append(method).append("(String name) {\n");
+                // A tab instead of spaces
+                sb.append(violation() ? "\t" : "        ").append("log.info(\"Greeting \" + name);\n");
+                // Wrong indentation
+                sb.append(violation() ? "      " : "        ").append("if (name == null) {\n");
+                // Non US-ASCII characters
+                sb.append("            return \"").append(violation() ? "Ol\u00e1" : "Hello").append(" stranger\";\n");
+                sb.append("        }\n");
+                sb.append("        return \"Hello \" + name;\n");
+                sb.append("    }\n\n");
+            }
+            sb.append("}\n");
+            write(new File(sourceDir, className + ".java"), sb.toString());
+        }
+        // A filtered resource using the project properties
+        write(new File(dir, "src/main/resources/application.properties"), "app.title=${app.title}\napp.version=${project.version}\n");
+    }
+
+    /**
+     * Write the Stacks file with the BOMs the quickstarts import
+     */
+    private void writeStacks(File file) throws IOException {
+        StringBuilder sb = new StringBuilder("availableBoms:\n");
+        for (String bom : BOMS) {
+            sb.append("  - id: ").append(bom).append("\n");
+            sb.append("    name: ").append(bom).append("\n");
+            sb.append("    groupId: org.jboss.bom\n");
+            sb.append("    artifactId: ").append(bom).append("\n");
+            sb.append("    recommendedVersion: ").append(BOM_VERSION).append("\n");
+        }
+        write(file, sb.toString());
+    }
+
+    /**
+     * Write the BOMs in the recommended version to the local repository
+     */
+    private void writeBoms(File localRepository) throws IOException {
+        for (int i = 0; i < BOMS.length; i++) {
+            StringBuilder dependencies = new StringBuilder();
+            for (String[] dependency : DEPENDENCIES) {
+                if (Integer.parseInt(dependency[3]) == i) {
+                    appendDependency(dependencies, dependency[0], dependency[1], "1.0.0.Final", null, "provided", "            ");
+                }
+            }
+            String pom = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <groupId>org.jboss.bom</groupId>\n"
+                + "    <artifactId>" + BOMS[i] + "</artifactId>\n"
+                + "    <version>" + BOM_VERSION + "</version>\n"
+                + "    <packaging>pom</packaging>\n"
+                + "    <dependencyManagement>\n"
+                + "        <dependencies>\n" + dependencies
+                + "        </dependencies>\n"
+                + "    </dependencyManagement>\n"
+                + "</project>\n";
+            write(new File(localRepository, "org/jboss/bom/" + BOMS[i] + "/" + BOM_VERSION + "/" + BOMS[i] + "-" + BOM_VERSION + ".pom"), pom);
+        }
+    }
+
+    /**
+     * @param dependencies how many dependencies. Each one has its version in a property
+     * @return a single pom.xml, to benchmark the parsers on small and very large files
+     */
+    public static String createPom(int dependencies) {
+        StringBuilder properties = new StringBuilder();
+        StringBuilder dependenciesXml = new StringBuilder();
+        for (int i = 0; i < dependencies; i++) {
+            String[] dependency = DEPENDENCIES[i % DEPENDENCIES.length];
+            // The dependencies past the known ones are made unique
+            String suffix = i < DEPENDENCIES.length ? "" : "-" + i;
+            String property = dependency[2] + suffix;
+            properties.append("        <").append(property).append(">1.0.").append(i).append(".Final</").append(property).append(">\n");
+            appendDependency(dependenciesXml, dependency[0], dependency[1] + suffix, "${" + property + "}", null, "provided", "        ");
+        }
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+            + "    <modelVersion>4.0.0</modelVersion>\n"
+            + "    <groupId>" + GROUP_ID + "</groupId>\n"
+            + "    <artifactId>quickstart</artifactId>\n"
+            + "    <version>" + VERSION + "</version>\n"
+            + "    <packaging>war</packaging>\n"
+            + LICENSES
+            + "    <properties>\n" + properties
+            + "    </properties>\n"
+            + "    <dependencies>\n" + dependenciesXml
+            + "    </dependencies>\n"
+            + "    <build>\n"
+            + "        <finalName>${project.artifactId}</finalName>\n"
+            + "    </build>\n"
+            + "</project>\n";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.maven.plugins.qstools.CheckerMetrics;
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.RunMetrics;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker;
+import org.jboss.maven.plugins.qstools.checkers.MavenCentralRepositoryChecker;
+
+/**
+ * Runs every checker on reactors written by the {@link ReactorGenerator} and records the throughput and the peak heap
+ * of each checker, one JSON object per line.
+ *
+ * Usage: ReactorHarness [modules[,modules...]] [seed] [result file]. The defaults are 10,100,1000,5000 modules, the
+ * seed 1 and target/reactor-harness.jsonl. Set the qstools.threads system property to check the projects in parallel.
+ *
+ * Each reactor is checked once to warm up and once measured. The MavenCentralRepositoryChecker isn't run: it mostly
+ * waits for Maven Central.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class ReactorHarness {
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "10,100,1000,5000").split(",");
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        File resultFile = new File(args.length > 2 ? args[2] : "target/reactor-harness.jsonl");
+        int threads = Integer.getInteger(AbstractProjectChecker.THREADS, 1);
+
+        resultFile.getAbsoluteFile().getParentFile().mkdirs();
+        PrintWriter result = new PrintWriter(new OutputStreamWriter(new FileOutputStream(resultFile), "UTF-8"));
+        try {
+            for (String size : sizes) {
+                run(Integer.parseInt(size.trim()), seed, threads, result);
+            }
+        } finally {
+            result.close();
+        }
+        System.out.println("Results written to " + resultFile);
+    }
+
+    private static void run(int modules, long seed, int threads, PrintWriter result) throws Exception {
+        File dir = File.createTempFile("qstools-harness", "");
+        dir.delete();
+        BenchmarkEnvironment environment = null;
+        try {
+            File quickstartsDir = new File(dir, "quickstarts");
+            File localRepository = new File(dir, "repository");
+            File stacksFile = new File(dir, "stacks.yaml");
+            long start = System.nanoTime();
+            new ReactorGenerator(seed).generate(quickstartsDir, modules, localRepository, stacksFile);
+            System.out.println(String.format("Generated %s modules with seed %s in %s ms", modules, seed, (System.nanoTime() - start) / 1000000));
+
+            environment = new BenchmarkEnvironment(quickstartsDir, localRepository, stacksFile, true);
+            environment.setThreads(threads);
+            // Warm up the JIT and build the BOM index
+            checkAll(environment, modules, seed, null);
+            checkAll(environment, modules, seed, result);
+        } finally {
+            if (environment != null) {
+                environment.close();
+            }
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Run all checkers like the report does
+     *
+     * @param result where the measures are written, or null to only warm up
+     */
+    private static void checkAll(BenchmarkEnvironment environment, int modules, long seed, PrintWriter result) throws Exception {
+        environment.startRun();
+        long totalNanos = 0;
+        long totalViolations = 0;
+        long peakHeap = 0;
+        for (QSChecker checker : environment.getCheckers()) {
+            if (checker instanceof MavenCentralRepositoryChecker) {
+                continue;
+            }
+            // Start each checker from the heap retained by the previous ones
+            System.gc();
+            resetPeakHeap();
+            long start = System.nanoTime();
+            Map<String, List<Violation>> violations = checker.check(environment.getRootProject(), environment.getMavenSession(),
+                environment.getReactorProjects(), environment.getLog());
+            long nanos = System.nanoTime() - start;
+            long checkerPeakHeap = getPeakHeap();
+            int count = 0;
+            for (List<Violation> fileViolations : violations.values()) {
+                count += fileViolations.size();
+            }
+            totalNanos += nanos;
+            totalViolations += count;
+            peakHeap = Math.max(peakHeap, checkerPeakHeap);
+            if (result != null) {
+                CheckerMetrics metrics = environment.lookup(RunMetrics.class).get(checker.getClass());
+                write(result, modules, seed, checker.getClass().getSimpleName(), nanos, count, metrics.getFiles(), metrics.getBytes(), checkerPeakHeap);
+            }
+        }
+        if (result != null) {
+            write(result, modules, seed, "all", totalNanos, totalViolations, -1, -1, peakHeap);
+            result.flush();
+        }
+    }
+
+    private static void write(PrintWriter result, int modules, long seed, String checker, long nanos, long violations, long files, long bytes, long peakHeap)
+        throws IOException {
+        long millis = nanos / 1000000;
+        double modulesPerSecond = nanos == 0 ? 0 : modules * 1000000000.0 / nanos;
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"modules\":").append(modules);
+        sb.append(",\"seed\":").append(seed);
+        sb.append(",\"checker\":\"").append(checker).append('"');
+        sb.append(",\"millis\":").append(millis);
+        sb.append(",\"modulesPerSecond\":").append(String.format("%.1f", modulesPerSecond));
+        sb.append(",\"violations\":").append(violations);
+        if (files >= 0) {
+            sb.append(",\"files\":").append(files);
+            sb.append(",\"bytesRead\":").append(bytes);
+        }
+        sb.append(",\"peakHeapBytes\":").append(peakHeap);
+        sb.append('}');
+        result.println(sb);
+        System.out.println(String.format("%6s modules %-30s %8s ms %10.1f modules/s %7s violations %6s MB peak heap", modules, checker, millis, modulesPerSecond,
+            violations, peakHeap / (1024 * 1024)));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the heap pools peak usage. The pools may peak at different times, so it is an upper bound
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+}
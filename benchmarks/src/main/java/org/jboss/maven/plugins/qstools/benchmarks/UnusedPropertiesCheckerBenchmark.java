@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link org.jboss.maven.plugins.qstools.checkers.UnusedPropertiesChecker} reads every pom.xml of the reactor, so
+ * each invocation starts a new run and includes parsing them.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class UnusedPropertiesCheckerBenchmark extends QuickstartsBenchmark {
+
+    private QSChecker checker;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.benchmarks.QuickstartsBenchmark#prepare()
+     */
+    @Override
+    protected void prepare() throws Exception {
+        checker = environment.getChecker("UnusedPropertiesChecker");
+    }
+
+    @Benchmark
+    public Map<String, List<Violation>> check() throws Exception {
+        environment.startRun();
+        return check(checker);
+    }
+
+}
@@ -0,0 +1,578 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.RepositorySystem;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.jboss.jdf.stacks.model.Bom;
+import org.jboss.jdf.stacks.model.Stacks;
+
+/**
+ * Knows the Stacks BOMs and which BOMs manage each groupId:artifactId.
+ *
+ * Finding the managed dependencies requires resolving and parsing every BOM and its parents, so the result is stored
+ * under the local repository (.cache/qstools/bom-index), one file per BOM set, and memory mapped by the next runs.
+ * The file is only written when all BOMs were resolved.
+ *
+ * The goals must call {@link #open(Stacks, MavenProject, MavenSession, Log)} before the lookups and {@link #clear()}
+ * when they are done. The stored indexes mapped by a run are kept for the next runs of the same Maven process while
+ * their files don't change, until {@link #invalidate()} is called.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = BomIndex.class)
+public class BomIndex {
+
+    private static final int MAGIC = 0x51534249;
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Resolving is mostly waiting for the repositories, so it doesn't depend on the number of processors
+     */
+    private static final int RESOLVER_THREADS = 8;
+
+    /**
+     * How many mapped indexes are kept for the next runs
+     */
+    private static final int MAX_MAPPED_INDEXES = 4;
+
+    @Requirement
+    private RepositorySystem repositorySystem;
+
+    private Future<Stacks> stacks;
+
+    private List<Bom> boms;
+
+    private Map<String, Bom> bomsByCoordinate;
+
+    private MavenProject project;
+
+    private MavenSession mavenSession;
+
+    private Log log;
+
+    private ByteBuffer index;
+
+    /**
+     * The BOM and parent POMs resolved in this run, because the index wasn't stored yet
+     */
+    private final Set<String> resolvedPoms = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+    /**
+     * The stored indexes already mapped, shared by the runs
+     */
+    private final BoundedCache<File, MappedIndex> mappedIndexes = new BoundedCache<File, MappedIndex>(MAX_MAPPED_INDEXES);
+
+    private int entriesOffset;
+
+    private int entryCount;
+
+    /**
+     * Use the BOMs of the given stacks. The managed dependencies are only indexed by {@link #load()} or on the first
+     * {@link #getManagingBoms(String, String)} call
+     *
+     * @param stacks the stacks file
+     * @param project the project used to retrieve the remote artifact repositories
+     * @param mavenSession used to find the local repository
+     * @param log
+     */
+    public void open(final Stacks stacks, MavenProject project, MavenSession mavenSession, Log log) {
+        FutureTask<Stacks> task = new FutureTask<Stacks>(new Callable<Stacks>() {
+
+            @Override
+            public Stacks call() throws Exception {
+                return stacks;
+            }
+        });
+        task.run();
+        open(task, project, mavenSession, log);
+    }
+
+    /**
+     * Use the BOMs of stacks that may still be downloading. The lookups wait for them
+     *
+     * @param stacks the stacks file being read
+     * @param project the project used to retrieve the remote artifact repositories
+     * @param mavenSession used to find the local repository
+     * @param log
+     */
+    public synchronized void open(Future<Stacks> stacks, MavenProject project, MavenSession mavenSession, Log log) {
+        this.stacks = stacks;
+        this.boms = null;
+        this.bomsByCoordinate = null;
+        this.project = project;
+        this.mavenSession = mavenSession;
+        this.log = log;
+        this.index = null;
+    }
+
+    /**
+     * Unmap the indexes shared by the runs. The stored index files are kept
+     */
+    public void invalidate() {
+        mappedIndexes.clear();
+    }
+
+    /**
+     * Forget the BOMs and end the run. The mapped indexes shared by the runs are kept
+     */
+    public synchronized void clear() {
+        stacks = null;
+        boms = null;
+        bomsByCoordinate = null;
+        project = null;
+        mavenSession = null;
+        log = null;
+        index = null;
+        resolvedPoms.clear();
+    }
+
+    /**
+     * @return the groupId:artifactId:version of the POMs resolved to build the index in this run
+     */
+    public List<String> getResolvedPoms() {
+        synchronized (resolvedPoms) {
+            return new ArrayList<String>(resolvedPoms);
+        }
+    }
+
+    /**
+     * @return the Stacks BOMs, waiting for the stacks file if it is still being read
+     */
+    public synchronized List<Bom> getBoms() throws Exception {
+        if (boms == null) {
+            Stacks availableStacks;
+            try {
+                availableStacks = stacks.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+            List<Bom> stacksBoms = new ArrayList<Bom>(availableStacks.getAvailableBoms());
+            bomsByCoordinate = new HashMap<String, Bom>();
+            for (Bom bom : stacksBoms) {
+                bomsByCoordinate.put(bom.getGroupId() + ':' + bom.getArtifactId(), bom);
+            }
+            boms = stacksBoms;
+        }
+        return boms;
+    }
+
+    /**
+     * @return the Stacks BOM with the given groupId and artifactId or null if it isn't a Stacks BOM
+     */
+    public synchronized Bom getBom(String groupId, String artifactId) throws Exception {
+        getBoms();
+        return bomsByCoordinate.get(groupId + ':' + artifactId);
+    }
+
+    /**
+     * Index the managed dependencies now instead of on the first lookup
+     */
+    public synchronized void load() throws Exception {
+        if (index == null) {
+            getBoms();
+            index = loadIndex();
+        }
+    }
+
+    /**
+     * @return the Stacks BOMs that manage the given dependency, in the Stacks order
+     */
+    public List<Bom> getManagingBoms(String groupId, String artifactId) throws Exception {
+        ByteBuffer buffer;
+        List<Bom> currentBoms;
+        int offset;
+        int high;
+        synchronized (this) {
+            load();
+            // Each lookup reads its own view, so concurrent lookups don't share the buffer position
+            buffer = index.duplicate();
+            currentBoms = boms;
+            offset = entriesOffset;
+            high = entryCount - 1;
+        }
+        String key = groupId + ':' + artifactId;
+        int low = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            buffer.position(buffer.getInt(offset + middle * 4));
+            int comparison = readString(buffer).compareTo(key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                int count = buffer.getShort();
+                List<Bom> result = new ArrayList<Bom>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(currentBoms.get(buffer.getShort()));
+                }
+                return result;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Map the stored index of the current BOMs or build it
+     */
+    private ByteBuffer loadIndex() throws Exception {
+        List<String> coordinates = new ArrayList<String>();
+        for (Bom bom : boms) {
+            coordinates.add(bom.getGroupId() + ':' + bom.getArtifactId() + ':' + bom.getRecommendedVersion());
+        }
+        File indexFile = new File(mavenSession.getLocalRepository().getBasedir(), ".cache/qstools/bom-index/" + hash(coordinates) + ".idx");
+        MappedIndex mappedIndex = mappedIndexes.get(indexFile);
+        if (mappedIndex != null && mappedIndex.lastModified == indexFile.lastModified()) {
+            // Each run reads its own view of the shared mapping
+            ByteBuffer buffer = mappedIndex.buffer.duplicate();
+            if (readHeader(buffer, coordinates)) {
+                log.debug("Using the mapped BOM index " + indexFile);
+                return buffer;
+            }
+        }
+        if (indexFile.isFile()) {
+            try {
+                long lastModified = indexFile.lastModified();
+                ByteBuffer buffer = map(indexFile);
+                if (readHeader(buffer, coordinates)) {
+                    log.debug("Using the BOM index " + indexFile);
+                    mappedIndexes.put(indexFile, new MappedIndex(buffer.duplicate(), lastModified));
+                    return buffer;
+                }
+            } catch (IOException e) {
+                log.debug("Ignoring the BOM index " + indexFile + ": " + e.getMessage());
+            }
+        }
+        Map<String, Set<Integer>> managedDependencies = new TreeMap<String, Set<Integer>>();
+        boolean complete = true;
+        List<List<Model>> chains = resolveChains();
+        for (int i = 0; i < chains.size(); i++) {
+            for (Model model : chains.get(i)) {
+                if (model == null) {
+                    complete = false;
+                } else if (model.getDependencyManagement() != null) {
+                    for (Dependency dep : model.getDependencyManagement().getDependencies()) {
+                        // For each dependency add its bom
+                        String key = dep.getGroupId() + ':' + dep.getArtifactId();
+                        if (managedDependencies.get(key) == null) {
+                            managedDependencies.put(key, new LinkedHashSet<Integer>());
+                        }
+                        managedDependencies.get(key).add(i);
+                    }
+                }
+            }
+        }
+        byte[] bytes = toBytes(coordinates, managedDependencies);
+        if (complete) {
+            indexFile.getParentFile().mkdirs();
+            File tempFile = new File(indexFile.getPath() + ".tmp");
+            FileOutputStream os = new FileOutputStream(tempFile);
+            try {
+                os.write(bytes);
+            } finally {
+                os.close();
+            }
+            if (!tempFile.renameTo(indexFile) && !(indexFile.delete() && tempFile.renameTo(indexFile))) {
+                log.debug("Could not store the BOM index " + indexFile);
+            }
+        }
+        // Incomplete indexes aren't stored and are only used by this run
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        readHeader(buffer, coordinates);
+        return buffer;
+    }
+
+    /**
+     * Resolve the parent chain of every BOM. The chains are resolved concurrently and each POM shared by several chains
+     * is resolved and parsed only once
+     *
+     * @return the POM models of each BOM chain, in the Stacks order. A null model means the POM wasn't found
+     */
+    private List<List<Model>> resolveChains() throws Exception {
+        final ConcurrentMap<String, FutureTask<Model>> models = new ConcurrentHashMap<String, FutureTask<Model>>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(RESOLVER_THREADS, boms.size())));
+        try {
+            List<Future<List<Model>>> futures = new ArrayList<Future<List<Model>>>();
+            for (final Bom bom : boms) {
+                futures.add(executor.submit(new Callable<List<Model>>() {
+
+                    @Override
+                    public List<Model> call() throws Exception {
+                        List<Model> chain = new ArrayList<Model>();
+                        Set<String> visited = new HashSet<String>();
+                        String groupId = bom.getGroupId();
+                        String artifactId = bom.getArtifactId();
+                        String version = bom.getRecommendedVersion();
+                        // recursive parent search
+                        while (visited.add(groupId + ':' + artifactId + ':' + version)) {
+                            Model model = getModel(models, groupId, artifactId, version);
+                            chain.add(model);
+                            if (model == null || model.getParent() == null) {
+                                break;
+                            }
+                            Parent p = model.getParent();
+                            groupId = p.getGroupId();
+                            artifactId = p.getArtifactId();
+                            version = p.getVersion();
+                        }
+                        return chain;
+                    }
+                }));
+            }
+            List<List<Model>> chains = new ArrayList<List<Model>>();
+            for (Future<List<Model>> future : futures) {
+                try {
+                    chains.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            log.debug(String.format("Resolved %s BOM and parent POMs for %s BOMs", models.size(), boms.size()));
+            return chains;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Resolve and parse the POM only if no other chain did it. Concurrent callers wait for the same resolution
+     *
+     * @return the POM model or null if it wasn't found
+     */
+    private Model getModel(ConcurrentMap<String, FutureTask<Model>> models, final String groupId, final String artifactId, final String version) throws Exception {
+        String key = groupId + ':' + artifactId + ':' + version;
+        FutureTask<Model> task = models.get(key);
+        if (task == null) {
+            FutureTask<Model> newTask = new FutureTask<Model>(new Callable<Model>() {
+
+                @Override
+                public Model call() throws Exception {
+                    return readBOMArtifact(groupId, artifactId, version);
+                }
+            });
+            task = models.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve the Maven artifact from the BOM information and parse it
+     *
+     * @return the POM model or null if it wasn't found
+     */
+    private Model readBOMArtifact(String groupId, String artifactId, String version) throws Exception {
+        Artifact pomArtifact = repositorySystem.createArtifact(groupId, artifactId, version, "", "pom");
+        ArtifactResolutionRequest arr = new ArtifactResolutionRequest();
+        arr.setArtifact(pomArtifact).setRemoteRepositories(project.getRemoteArtifactRepositories()).setLocalRepository(mavenSession.getLocalRepository());
+        repositorySystem.resolve(arr);
+        resolvedPoms.add(groupId + ':' + artifactId + ':' + version);
+        if (!pomArtifact.getFile().exists()) {
+            String msg = String.format("BOM %s (from jdf-stacks) was not found. You may need to configure an EAP/WFK repository in your settings.xml.", pomArtifact);
+            log.debug(msg);
+            return null;
+        }
+        MavenXpp3Reader reader = new MavenXpp3Reader();
+        FileReader fileReader = new FileReader(pomArtifact.getFile());
+        try {
+            return reader.read(fileReader);
+        } finally {
+            fileReader.close();
+        }
+    }
+
+    /**
+     * Layout: magic, version, BOM coordinates, entry count, entry offsets and the entries sorted by groupId:artifactId.
+     * Each entry has its groupId:artifactId followed by the indexes of the BOMs that manage it
+     */
+    private byte[] toBytes(List<String> coordinates, Map<String, Set<Integer>> managedDependencies) throws IOException {
+        List<byte[]> keys = new ArrayList<byte[]>();
+        int headerSize = 4 + 4 + 4;
+        for (String coordinate : coordinates) {
+            headerSize += 2 + coordinate.getBytes("UTF-8").length;
+        }
+        headerSize += 4 + managedDependencies.size() * 4;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(headerSize * 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(coordinates.size());
+            for (String coordinate : coordinates) {
+                writeString(out, coordinate);
+            }
+            out.writeInt(managedDependencies.size());
+            int offset = headerSize;
+            for (Map.Entry<String, Set<Integer>> entry : managedDependencies.entrySet()) {
+                byte[] key = entry.getKey().getBytes("UTF-8");
+                keys.add(key);
+                out.writeInt(offset);
+                offset += 2 + key.length + 2 + entry.getValue().size() * 2;
+            }
+            int i = 0;
+            for (Set<Integer> bomIndexes : managedDependencies.values()) {
+                byte[] key = keys.get(i++);
+                out.writeShort(key.length);
+                out.write(key);
+                out.writeShort(bomIndexes.size());
+                for (Integer bomIndex : bomIndexes) {
+                    out.writeShort(bomIndex);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Check that the index was written for the same BOMs and find where the entries are
+     */
+    private boolean readHeader(ByteBuffer buffer, List<String> coordinates) {
+        buffer.position(0);
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != coordinates.size()) {
+            return false;
+        }
+        for (String coordinate : coordinates) {
+            if (!coordinate.equals(readString(buffer))) {
+                return false;
+            }
+        }
+        entryCount = buffer.getInt();
+        entriesOffset = buffer.position();
+        return true;
+    }
+
+    private ByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        } finally {
+            // The mapping stays valid after the channel is closed
+            randomAccessFile.close();
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String hash(List<String> coordinates) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String coordinate : coordinates) {
+                digest.update(coordinate.getBytes("UTF-8"));
+                digest.update((byte) '\n');
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A stored index mapped by a run and the modification time of its file when it was mapped
+     */
+    private static class MappedIndex {
+
+        private final ByteBuffer buffer;
+
+        private final long lastModified;
+
+        public MappedIndex(ByteBuffer buffer, long lastModified) {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+}
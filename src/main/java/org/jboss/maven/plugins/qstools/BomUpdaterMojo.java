@@ -24,12 +24,9 @@ import java.net.URL;
 import java.util.List;
 import java.util.Scanner;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
-
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -39,14 +36,10 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
-import org.jboss.jdf.stacks.client.StacksClient;
 import org.jboss.jdf.stacks.model.Bom;
 import org.jboss.jdf.stacks.model.Stacks;
 import org.jboss.maven.plugins.qstools.maven.MavenDependency;
-import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
 
 /**
  * Update all BOMs to use the recommended versions. Note that the update only will be made from previous version to newer
@@ -67,12 +60,36 @@ public class BomUpdaterMojo extends AbstractMojo {
     @Parameter(property = "qstools.stacks.url")
     private URL stacksUrl;
 
+    /**
+     * Seconds before the cached stacks file is checked again for changes
+     */
+    @Parameter(property = StacksProvider.TTL, defaultValue = "86400")
+    private int stacksTtl;
+
+    /**
+     * Discard the parsed stacks files and BOM indexes kept by the previous runs of the same Maven process, like a
+     * persistent Maven daemon
+     */
+    @Parameter(property = RunScope.INVALIDATE, defaultValue = "false")
+    private boolean invalidateCaches;
+
+    @Component
+    private MavenSession mavenSession;
+
     @Component
     private DependencyProvider dependencyProvider;
 
-    private XPath xPath = XPathFactory.newInstance().newXPath();
+    @Component
+    private PomCache pomCache;
+
+    @Component
+    private StacksProvider stacksProvider;
 
-    private StacksClient stacksClient;
+    @Component
+    private BomIndex bomIndex;
+
+    @Component
+    private RunScope runScope;
 
     /*
      * (non-Javadoc)
@@ -81,12 +98,14 @@ public class BomUpdaterMojo extends AbstractMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        runScope.begin();
+        if (invalidateCaches) {
+            runScope.invalidateSharedCaches();
+        }
         try {
-            stacksClient = new StacksClient();
-            if (stacksUrl != null) {
-                stacksClient.getActualConfiguration().setUrl(stacksUrl);
-            }
-            getLog().info("Using the following Stacks YML file: " + stacksClient.getActualConfiguration().getUrl());
+            getLog().info("Using the following Stacks YML file: " + (stacksUrl == null ? stacksProvider.getDefaultUrl() : stacksUrl));
+            Stacks stacks = stacksProvider.getStacks(stacksUrl, stacksTtl, mavenSession, getLog());
+            bomIndex.open(stacks, reactorProjects.get(0), mavenSession, getLog());
             getLog().warn("Running this plugin CAN MODIFY your pom.xml files. Make sure to have your changes commited before running this plugin");
             getLog().info("Do you want to continue[yes/no]");
             String answer = new Scanner(System.in).nextLine();
@@ -99,6 +118,8 @@ public class BomUpdaterMojo extends AbstractMojo {
             }
         } catch (Exception e) {
             throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            runScope.end();
         }
     }
 
@@ -107,21 +128,12 @@ public class BomUpdaterMojo extends AbstractMojo {
      * @throws Exception
      */
     private void processProject(MavenProject project) throws Exception {
-        Stacks stacks = stacksClient.getStacks();
         getLog().debug("Processing " + project.getArtifactId());
-        Document doc = PositionalXMLReader.readXML(new FileInputStream(project.getFile()));
-        NodeList dependencies = (NodeList) xPath.evaluate("/project/dependencyManagement/dependencies/dependency", doc, XPathConstants.NODESET);
         // Iterate over all Declared Managed Dependencies
-        for (int x = 0; x < dependencies.getLength(); x++) {
-            Node dependency = dependencies.item(x);
-            MavenDependency mavenDependency = dependencyProvider.getDependencyFromNode(project, dependency);
+        for (PomElement dependency : pomCache.getElements(project, "/project/dependencyManagement/dependencies/dependency")) {
+            MavenDependency mavenDependency = dependencyProvider.getDependencyFromElement(project, dependency);
             // use stacks to find if the project is using a jdf bom
-            Bom bomUsed = null;
-            for (Bom bom : stacks.getAvailableBoms()) {
-                if (bom.getGroupId().equals(mavenDependency.getGroupId()) && bom.getArtifactId().equals(mavenDependency.getArtifactId())) {
-                    bomUsed = bom;
-                }
-            }
+            Bom bomUsed = bomIndex.getBom(mavenDependency.getGroupId(), mavenDependency.getArtifactId());
             if (bomUsed != null && // It used a Managed JDF Bom
                 !(mavenDependency.getInterpoledVersion().equals(bomUsed.getRecommendedVersion()))) {
 
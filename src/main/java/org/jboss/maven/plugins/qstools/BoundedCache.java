@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache shared by the runs of the same Maven process, like the builds of a persistent Maven daemon. It keeps at most
+ * maxSize entries and discards the least recently used one first.
+ *
+ * Entries must not depend on the project being checked: they are only discarded by size or by {@link #clear()}.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class BoundedCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public BoundedCache(final int maxSize) {
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value or null if there is none
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Discard all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return how many entries are cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
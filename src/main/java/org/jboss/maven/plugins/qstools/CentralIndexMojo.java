@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.File;
+import java.util.SortedSet;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jboss.maven.plugins.qstools.maven.CentralIndex;
+
+/**
+ * Build the index used by the check goal to find out, without network, if the dependencies are in Maven Central.
+ * 
+ * The source can be a Maven repository directory or a text file with one groupId:artifactId:version per line
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+@Mojo(name = "centralIndex", requiresProject = false, threadSafe = true)
+public class CentralIndexMojo extends AbstractMojo {
+
+    /**
+     * A Maven repository directory or a text file with one groupId:artifactId:version per line
+     */
+    @Parameter(property = "qstools.central.index.source", required = true)
+    private File source;
+
+    /**
+     * The index file to write
+     */
+    @Parameter(property = CentralIndex.INDEX, required = true)
+    private File index;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.maven.plugin.Mojo#execute()
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!source.exists()) {
+            throw new MojoFailureException(source + " doesn't exist");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            SortedSet<String> keys = CentralIndex.readKeys(source);
+            CentralIndex.write(index, keys);
+            getLog().info(String.format("Indexed %s artifacts from %s in %s ms: %s (%s bytes)", keys.size(), source, System.currentTimeMillis() - start, index, index.length()));
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+}
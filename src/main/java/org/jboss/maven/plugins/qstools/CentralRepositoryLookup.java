@@ -0,0 +1,380 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.RepositorySystem;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.jboss.maven.plugins.qstools.maven.CentralIndex;
+
+/**
+ * Finds out if artifacts can be resolved from Maven Central.
+ *
+ * Each groupId:artifactId:version is looked up only once per run, no matter how many modules use it, and the lookups
+ * run concurrently. The results are stored under the local repository (.cache/qstools/central-lookups.properties)
+ * and reused by the next runs until they expire. Offline builds don't store artifacts that weren't found.
+ *
+ * When a {@link CentralIndex} is informed, the lookups are answered by the index instead, without network.
+ *
+ * The goals must call {@link #open(MavenSession, int, int, File)} before the lookups, {@link #save()} to store the
+ * results and {@link #clear()} when they are done.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = CentralRepositoryLookup.class)
+public class CentralRepositoryLookup {
+
+    public static final String THREADS = "qstools.central.threads";
+
+    public static final String TTL = "qstools.central.ttl";
+
+    @Requirement
+    private RepositorySystem repositorySystem;
+
+    private final ConcurrentMap<String, Future<Boolean>> lookups = new ConcurrentHashMap<String, Future<Boolean>>();
+
+    /**
+     * groupId:artifactId:version=found:timestamp. Properties are synchronized, so lookups can update it concurrently
+     */
+    private final Properties storedResults = new Properties();
+
+    private final AtomicLong resolutions = new AtomicLong();
+
+    private final AtomicLong storedHits = new AtomicLong();
+
+    private final AtomicLong sharedHits = new AtomicLong();
+
+    /*
+     * Written under the lock by open(), cancel() and clear(), but read without it by the checker and lookup threads
+     */
+    private volatile MavenSession mavenSession;
+
+    private volatile ExecutorService executor;
+
+    private volatile File cacheFile;
+
+    private volatile long ttlMillis;
+
+    private volatile CentralIndex centralIndex;
+
+    private final AtomicLong indexHits = new AtomicLong();
+
+    private volatile boolean cancelled;
+
+    /**
+     * The artifacts resolved through the repository system in this run
+     */
+    private final Set<String> resolvedArtifacts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Load the stored results and start the lookup threads
+     *
+     * @param mavenSession used to find the local repository and if the build is offline
+     * @param threads the maximum number of concurrent lookups
+     * @param ttl seconds before a stored result is looked up again
+     * @param indexFile a {@link CentralIndex} file that answers the lookups or null to resolve the artifacts
+     */
+    public synchronized void open(MavenSession mavenSession, int threads, int ttl, File indexFile) throws IOException {
+        this.mavenSession = mavenSession;
+        if (indexFile != null) {
+            // Index lookups take microseconds: no threads and no stored results
+            this.centralIndex = CentralIndex.open(indexFile);
+            return;
+        }
+        this.ttlMillis = ttl * 1000L;
+        this.cacheFile = new File(mavenSession.getLocalRepository().getBasedir(), ".cache/qstools/central-lookups.properties");
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        if (cacheFile.isFile()) {
+            InputStream is = new FileInputStream(cacheFile);
+            try {
+                storedResults.load(is);
+            } finally {
+                is.close();
+            }
+        }
+    }
+
+    /**
+     * Look up all dependencies concurrently
+     *
+     * @return if each dependency was found, in the same order as the dependencies
+     */
+    public List<Boolean> lookup(List<Dependency> dependencies) throws Exception {
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (Dependency dependency : dependencies) {
+            futures.add(lookup(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion()));
+        }
+        List<Boolean> found = new ArrayList<Boolean>();
+        for (Future<Boolean> future : futures) {
+            try {
+                found.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the groupId:artifactId:version of the dependencies that were resolved in this run instead of answered
+     *         from the index or the stored results
+     */
+    public List<String> getResolvedArtifacts(List<Dependency> dependencies) {
+        List<String> resolved = new ArrayList<String>();
+        for (Dependency dependency : dependencies) {
+            String key = dependency.getGroupId() + ':' + dependency.getArtifactId() + ':' + dependency.getVersion();
+            if (resolvedArtifacts.contains(key)) {
+                resolved.add(key);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Start the lookups of all reactor dependencies without waiting for them, so they run while other checkers work
+     */
+    public void prefetch(List<MavenProject> reactorProjects) {
+        for (MavenProject project : reactorProjects) {
+            for (Dependency dependency : project.getDependencies()) {
+                lookup(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+            }
+        }
+    }
+
+    /**
+     * Start the lookup, unless another module already did it
+     */
+    private Future<Boolean> lookup(final String groupId, final String artifactId, final String version) {
+        if (cancelled) {
+            throw new CancellationException("The Maven Central lookups were cancelled");
+        }
+        final String key = groupId + ':' + artifactId + ':' + version;
+        Future<Boolean> lookup = lookups.get(key);
+        if (lookup != null) {
+            sharedHits.incrementAndGet();
+            return lookup;
+        }
+        FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                if (centralIndex != null) {
+                    indexHits.incrementAndGet();
+                    return centralIndex.contains(key);
+                }
+                Boolean storedResult = getStoredResult(key);
+                if (storedResult != null) {
+                    storedHits.incrementAndGet();
+                    return storedResult;
+                }
+                // Cancelled while this lookup was queued: don't go to the network
+                if (cancelled) {
+                    throw new CancellationException("The Maven Central lookups were cancelled");
+                }
+                return resolve(key, groupId, artifactId, version);
+            }
+        });
+        lookup = lookups.putIfAbsent(key, task);
+        if (lookup != null) {
+            sharedHits.incrementAndGet();
+            return lookup;
+        }
+        if (cancelled) {
+            throw fail(key, task);
+        }
+        // Without threads only the index answers, so the lookup runs right away
+        ExecutorService currentExecutor = executor;
+        if (currentExecutor == null) {
+            task.run();
+        } else {
+            try {
+                currentExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                throw fail(key, task);
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Never leave a task that won't run where other modules would wait for it
+     *
+     * @return the exception to throw to the caller
+     */
+    private CancellationException fail(String key, FutureTask<Boolean> task) {
+        lookups.remove(key, task);
+        task.cancel(false);
+        return new CancellationException("The Maven Central lookups were cancelled");
+    }
+
+    private boolean resolve(String key, String groupId, String artifactId, String version) throws Exception {
+        Artifact dependencyArtifact = repositorySystem.createProjectArtifact(groupId, artifactId, version);
+        ArtifactResolutionRequest arr = new ArtifactResolutionRequest();
+
+        List<ArtifactRepository> remoteRepositories = new ArrayList<ArtifactRepository>();
+        remoteRepositories.add(repositorySystem.createDefaultRemoteRepository());
+
+        arr.setArtifact(dependencyArtifact).setRemoteRepositories(remoteRepositories).setLocalRepository(mavenSession.getLocalRepository());
+        boolean found = repositorySystem.resolve(arr).isSuccess();
+        resolutions.incrementAndGet();
+        resolvedArtifacts.add(key);
+        // Offline builds can't tell if a missing artifact is in Maven Central
+        if (found || !mavenSession.isOffline()) {
+            storedResults.setProperty(key, found + ":" + System.currentTimeMillis());
+        }
+        return found;
+    }
+
+    /**
+     * @return the stored result or null if there is none or it expired
+     */
+    private Boolean getStoredResult(String key) {
+        String value = storedResults.getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            if (System.currentTimeMillis() - Long.parseLong(value.substring(separator + 1)) >= ttlMillis) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return Boolean.valueOf(value.substring(0, separator));
+    }
+
+    /**
+     * Store the results that didn't expire
+     */
+    public synchronized void save() throws IOException {
+        if (cacheFile == null) {
+            return;
+        }
+        Properties results = new Properties();
+        for (String key : storedResults.stringPropertyNames()) {
+            if (getStoredResult(key) != null) {
+                results.setProperty(key, storedResults.getProperty(key));
+            }
+        }
+        cacheFile.getParentFile().mkdirs();
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        OutputStream os = new FileOutputStream(tempFile);
+        try {
+            results.store(os, "Maven Central lookups");
+        } finally {
+            os.close();
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            cacheFile.delete();
+            if (!tempFile.renameTo(cacheFile)) {
+                throw new IOException("Could not write " + cacheFile);
+            }
+        }
+    }
+
+    /**
+     * Stop the lookups that didn't finish yet. The finished lookups are still saved
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        // The executor is kept until clear(), which waits for its threads
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (Future<Boolean> lookup : lookups.values()) {
+            lookup.cancel(true);
+        }
+    }
+
+    /**
+     * Stop the lookup threads and discard the results and statistics. The running lookups are waited for, so they don't
+     * use the state of the next run
+     */
+    public synchronized void clear() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // A resolution in progress may not stop when interrupted
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        lookups.clear();
+        resolvedArtifacts.clear();
+        cancelled = false;
+        storedResults.clear();
+        centralIndex = null;
+        indexHits.set(0);
+        mavenSession = null;
+        cacheFile = null;
+        resolutions.set(0);
+        storedHits.set(0);
+        sharedHits.set(0);
+    }
+
+    /**
+     * @return a human readable summary of the lookups
+     */
+    public String getStatistics() {
+        if (centralIndex != null) {
+            return String.format("%s artifacts looked up in the index of %s artifacts", indexHits.get(), centralIndex.size());
+        }
+        return String.format("%s artifacts resolved, %s stored results reused, %s lookups shared", resolutions.get(), storedHits.get(), sharedHits.get());
+    }
+
+}
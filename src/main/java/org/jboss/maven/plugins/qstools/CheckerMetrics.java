@@ -0,0 +1,185 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What a checker execution cost: wall and CPU time, files and bytes processed, artifacts resolved, violations found and
+ * the slowest files. It is updated concurrently by the threads working for the checker.
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+public class CheckerMetrics {
+
+    private final Class<? extends QSChecker> checker;
+
+    private final int topFiles;
+
+    private final AtomicLong wallTime = new AtomicLong();
+
+    private final AtomicLong cpuTime = new AtomicLong();
+
+    private final AtomicLong files = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong violations = new AtomicLong();
+
+    private final Set<String> resolutions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The slowest files, with the fastest of them at the head so it is the one replaced
+     */
+    private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<FileTime>(11, new Comparator<FileTime>() {
+
+        @Override
+        public int compare(FileTime o1, FileTime o2) {
+            return o1.nanos < o2.nanos ? -1 : (o1.nanos == o2.nanos ? 0 : 1);
+        }
+    });
+
+    /**
+     * @param topFiles how many of the slowest files are kept
+     */
+    public CheckerMetrics(Class<? extends QSChecker> checker, int topFiles) {
+        this.checker = checker;
+        this.topFiles = topFiles;
+    }
+
+    /**
+     * Count a processed file
+     * 
+     * @param file the file path, relative to the execution root
+     * @param nanos the time spent checking it
+     * @param fileBytes the bytes read from it
+     */
+    public void addFile(String file, long nanos, long fileBytes) {
+        files.incrementAndGet();
+        bytes.addAndGet(fileBytes);
+        if (topFiles <= 0) {
+            return;
+        }
+        synchronized (slowestFiles) {
+            if (slowestFiles.size() < topFiles) {
+                slowestFiles.add(new FileTime(file, nanos));
+            } else if (slowestFiles.peek().nanos < nanos) {
+                slowestFiles.poll();
+                slowestFiles.add(new FileTime(file, nanos));
+            }
+        }
+    }
+
+    public void addWallTime(long nanos) {
+        wallTime.addAndGet(nanos);
+    }
+
+    /**
+     * Add the CPU time of a thread working for the checker
+     */
+    public void addCpuTime(long nanos) {
+        cpuTime.addAndGet(nanos);
+    }
+
+    public void addViolations(int count) {
+        violations.addAndGet(count);
+    }
+
+    /**
+     * Count the artifacts resolved for the checker. Artifacts needed by several modules or checkers are counted once per
+     * checker
+     * 
+     * @param artifacts the resolved groupId:artifactId:version
+     */
+    public void addResolutions(Collection<String> artifacts) {
+        resolutions.addAll(artifacts);
+    }
+
+    public Class<? extends QSChecker> getChecker() {
+        return checker;
+    }
+
+    public long getWallTimeMillis() {
+        return wallTime.get() / 1000000;
+    }
+
+    public long getCpuTimeMillis() {
+        return cpuTime.get() / 1000000;
+    }
+
+    public long getFiles() {
+        return files.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getResolutions() {
+        return resolutions.size();
+    }
+
+    public long getViolations() {
+        return violations.get();
+    }
+
+    /**
+     * @return the slowest files, the slowest first
+     */
+    public List<FileTime> getSlowestFiles() {
+        List<FileTime> sorted;
+        synchronized (slowestFiles) {
+            sorted = new ArrayList<FileTime>(slowestFiles);
+        }
+        Collections.sort(sorted, Collections.reverseOrder(slowestFiles.comparator()));
+        return sorted;
+    }
+
+    /**
+     * The time spent checking a file
+     */
+    public static class FileTime {
+
+        private final String file;
+
+        private final long nanos;
+
+        FileTime(String file, long nanos) {
+            this.file = file;
+            this.nanos = nanos;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public long getMillis() {
+            return nanos / 1000000;
+        }
+
+    }
+
+}
@@ -16,6 +16,10 @@
  */
 package org.jboss.maven.plugins.qstools;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.model.Model;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.interpolation.InterpolationException;
@@ -24,24 +28,46 @@ import org.codehaus.plexus.interpolation.PrefixedValueSourceWrapper;
 import org.codehaus.plexus.interpolation.PropertiesBasedValueSource;
 import org.codehaus.plexus.interpolation.StringSearchInterpolator;
 import org.jboss.maven.plugins.qstools.maven.MavenDependency;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
 import org.w3c.dom.Node;
 
 /**
+ * Reads the dependencies declared in a pom.xml and interpolates their versions.
+ *
+ * Each project has a single interpolation context, and each version expression is interpolated once per project. The
+ * dependency read from each node or element is kept too, so the checkers reading the same pom.xml share it.
+ *
+ * The caches are cleared by {@link RunScope}.
+ *
  * @author Rafael Benevides
  * 
  */
 @Component(role = DependencyProvider.class)
 public class DependencyProvider {
 
+    /**
+     * The interpolation context of each project model. Models don't override equals, so each project has its own
+     */
+    private final ConcurrentMap<Model, ProjectInterpolator> interpolators = new ConcurrentHashMap<Model, ProjectInterpolator>();
+
+    /**
+     * The dependency read from each DOM node or {@link PomElement}. Neither overrides equals
+     */
+    private final ConcurrentMap<Object, MavenDependency> dependencies = new ConcurrentHashMap<Object, MavenDependency>();
+
     public MavenDependency getDependencyFromNode(MavenProject project, Node dependency) throws InterpolationException {
+        MavenDependency mavenDependency = dependencies.get(dependency);
+        if (mavenDependency != null) {
+            return mavenDependency;
+        }
         String groupId = null;
         String artifactId = null;
         String declaredVersion = null;
-        String interpoledVersion = null;
         String type = null;
         String scope = null;
-        for (int x = 0; x < dependency.getChildNodes().getLength(); x++) {
-            Node node = dependency.getChildNodes().item(x);
+        // Walk the siblings instead of using getChildNodes().item(): the NodeList cache is shared by the whole
+        // document and isn't safe when several checkers read the same document
+        for (Node node = dependency.getFirstChild(); node != null; node = node.getNextSibling()) {
             if ("groupId".equals(node.getNodeName())) {
                 groupId = node.getTextContent();
             }
@@ -50,7 +76,6 @@ public class DependencyProvider {
             }
             if ("version".equals(node.getNodeName())) {
                 declaredVersion = node.getTextContent();
-                interpoledVersion = resolveMavenProperty(project, declaredVersion);
             }
             if ("type".equals(node.getNodeName())) {
                 type = node.getTextContent();
@@ -59,16 +84,106 @@ public class DependencyProvider {
                 scope = node.getTextContent();
             }
         }
+        return putDependency(dependency, createDependency(project, groupId, artifactId, declaredVersion, type, scope));
+    }
+
+    public MavenDependency getDependencyFromElement(MavenProject project, PomElement dependency) throws InterpolationException {
+        MavenDependency mavenDependency = dependencies.get(dependency);
+        if (mavenDependency != null) {
+            return mavenDependency;
+        }
+        String groupId = null;
+        String artifactId = null;
+        String declaredVersion = null;
+        String type = null;
+        String scope = null;
+        for (PomElement element : dependency.getChildren()) {
+            if ("groupId".equals(element.getName())) {
+                groupId = element.getText();
+            }
+            if ("artifactId".equals(element.getName())) {
+                artifactId = element.getText();
+            }
+            if ("version".equals(element.getName())) {
+                declaredVersion = element.getText();
+            }
+            if ("type".equals(element.getName())) {
+                type = element.getText();
+            }
+            if ("scope".equals(element.getName())) {
+                scope = element.getText();
+            }
+        }
+        return putDependency(dependency, createDependency(project, groupId, artifactId, declaredVersion, type, scope));
+    }
+
+    /**
+     * Keep the first dependency read from the node, so concurrent readers share it
+     */
+    private MavenDependency putDependency(Object node, MavenDependency mavenDependency) {
+        MavenDependency existing = dependencies.putIfAbsent(node, mavenDependency);
+        return existing == null ? mavenDependency : existing;
+    }
+
+    private MavenDependency createDependency(MavenProject project, String groupId, String artifactId, String declaredVersion, String type, String scope)
+        throws InterpolationException {
+        String interpoledVersion = declaredVersion == null ? null : resolveMavenProperty(project, declaredVersion);
         return new MavenDependency(groupId, artifactId, declaredVersion, interpoledVersion, type, scope);
     }
 
     private String resolveMavenProperty(MavenProject project, String textContent) throws InterpolationException {
-        StringSearchInterpolator interpolator = new StringSearchInterpolator();
-        // Associate project.model with ${project.*} and ${pom.*} prefixes
-        PrefixedValueSourceWrapper modelWrapper = new PrefixedValueSourceWrapper(new ObjectBasedValueSource(project.getModel()), "project.", true);
-        interpolator.addValueSource(modelWrapper);
-        interpolator.addValueSource(new PropertiesBasedValueSource(project.getModel().getProperties()));
+        if (textContent.indexOf("${") < 0) {
+            // Nothing to interpolate
+            return textContent;
+        }
+        Model model = project.getModel();
+        ProjectInterpolator interpolator = interpolators.get(model);
+        if (interpolator == null) {
+            ProjectInterpolator newInterpolator = new ProjectInterpolator(model);
+            interpolator = interpolators.putIfAbsent(model, newInterpolator);
+            if (interpolator == null) {
+                interpolator = newInterpolator;
+            }
+        }
         return interpolator.interpolate(textContent);
     }
 
+    /**
+     * Discard the interpolation contexts and the dependencies read
+     */
+    public void clear() {
+        interpolators.clear();
+        dependencies.clear();
+    }
+
+    /**
+     * The interpolation context of a project and the values already interpolated with it
+     */
+    private static class ProjectInterpolator {
+
+        private final StringSearchInterpolator interpolator = new StringSearchInterpolator();
+
+        private final ConcurrentMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+        public ProjectInterpolator(Model model) {
+            // Associate project.model with ${project.*} and ${pom.*} prefixes
+            PrefixedValueSourceWrapper modelWrapper = new PrefixedValueSourceWrapper(new ObjectBasedValueSource(model), "project.", true);
+            interpolator.addValueSource(modelWrapper);
+            interpolator.addValueSource(new PropertiesBasedValueSource(model.getProperties()));
+        }
+
+        public String interpolate(String expression) throws InterpolationException {
+            String value = values.get(expression);
+            if (value == null) {
+                // The interpolator keeps state while interpolating, so checkers reading the same project take turns
+                synchronized (interpolator) {
+                    value = interpolator.interpolate(expression);
+                }
+                values.put(expression, value);
+            }
+            return value;
+        }
+
+    }
+
 }
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The violations of all checkers grouped by file. The violations aren't copied: each file violations are read from the
+ * checkers results, in the checkers order, while the report is rendered. The results of all checkers must be complete
+ * by then, since each file lists the violations of every checker.
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+class FilesViolations {
+
+    private final List<Map<String, List<Violation>>> checkersViolations;
+
+    private final SortedSet<String> files = new TreeSet<String>();
+
+    /**
+     * @param checkersViolations each checker violations, in the checkers order
+     */
+    FilesViolations(List<Map<String, List<Violation>>> checkersViolations) {
+        this.checkersViolations = checkersViolations;
+        for (Map<String, List<Violation>> checkerViolations : checkersViolations) {
+            files.addAll(checkerViolations.keySet());
+        }
+    }
+
+    /**
+     * @return the files with violations, sorted
+     */
+    SortedSet<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return how many violations the file has
+     */
+    int count(String file) {
+        int count = 0;
+        for (List<Violation> violations : getViolations(file)) {
+            count += violations.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the file violations of each checker that found any, in the checkers order
+     */
+    List<List<Violation>> getViolations(String file) {
+        List<List<Violation>> fileViolations = new ArrayList<List<Violation>>(2);
+        for (Map<String, List<Violation>> checkerViolations : checkersViolations) {
+            List<Violation> violations = checkerViolations.get(file);
+            if (violations != null) {
+                fileViolations.add(violations);
+            }
+        }
+        return fileViolations;
+    }
+
+}
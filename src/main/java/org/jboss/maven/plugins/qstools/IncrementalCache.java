@@ -0,0 +1,368 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.plexus.component.annotations.Component;
+
+/**
+ * Keeps the violations found by each checker for each checked unit (a file, a module or the whole reactor) together
+ * with the hash of the files the unit depends on. An incremental check reuses the violations of the units whose files
+ * didn't change.
+ *
+ * The cache is stored in a single compressed file. It is discarded when the run fingerprint (plugin version, checkers,
+ * parameters and stacks contents) changes. Only the units used in a run are saved, so removed files are dropped. The
+ * stacks contents are only known once the stacks file is read in background, so the stored results are validated on
+ * the first lookup instead of when the cache is opened.
+ *
+ * The loaded results are cleared by {@link RunScope}.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = IncrementalCache.class)
+public class IncrementalCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private volatile boolean enabled;
+
+    private File cacheFile;
+
+    private String fingerprint;
+
+    private Future<String> stacksHash;
+
+    /**
+     * The fingerprint of the stored results, compared with the run fingerprint on the first lookup
+     */
+    private String storedFingerprint;
+
+    private volatile boolean validated;
+
+    private final ConcurrentMap<String, Entry> storedEntries = new ConcurrentHashMap<String, Entry>();
+
+    private final ConcurrentMap<String, Entry> usedEntries = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong checked = new AtomicLong();
+
+    /**
+     * Enable the cache for this run and load the results stored by the previous run with the same fingerprint
+     *
+     * @param cacheFile where the results are stored
+     * @param fingerprint everything, other than the checked files and the stacks contents, that changes the checkers
+     *        results
+     * @param stacksHash the hash of the stacks file, not waited for until the first lookup
+     */
+    public synchronized void open(File cacheFile, String fingerprint, Future<String> stacksHash) throws IOException {
+        this.cacheFile = cacheFile;
+        this.fingerprint = fingerprint;
+        this.stacksHash = stacksHash;
+        if (cacheFile.exists()) {
+            try {
+                load();
+            } catch (IOException e) {
+                // A truncated or corrupted cache is ignored: everything is checked again
+            }
+        }
+        enabled = true;
+    }
+
+    /**
+     * @return true if an incremental check is running
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param files the files a unit depends on. Missing files are part of the hash too
+     * @return the hash of the files paths and contents
+     */
+    public String hash(Collection<File> files) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        for (File file : files) {
+            digest.update(file.getPath().getBytes("UTF-8"));
+            digest.update((byte) 0);
+            if (file.isFile()) {
+                InputStream is = new FileInputStream(file);
+                try {
+                    int read;
+                    while ((read = is.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                } finally {
+                    is.close();
+                }
+            } else {
+                digest.update((byte) (file.isDirectory() ? 1 : 2));
+            }
+            digest.update((byte) 0);
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * Complete the run fingerprint with the stacks hash and discard the stored results if they were found with another
+     * one. If the stacks file can't be read, the cache is disabled for the run
+     *
+     * @return false if the cache was disabled
+     */
+    private boolean validate() {
+        if (!validated) {
+            synchronized (this) {
+                if (!validated && enabled) {
+                    try {
+                        MessageDigest digest = newDigest();
+                        digest.update((fingerprint + '\n' + stacksHash.get()).getBytes("UTF-8"));
+                        fingerprint = toHex(digest);
+                        if (!fingerprint.equals(storedFingerprint)) {
+                            storedEntries.clear();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        disable();
+                    } catch (ExecutionException e) {
+                        // The checkers that use the stacks report the failure
+                        disable();
+                    } catch (IOException e) {
+                        disable();
+                    }
+                    validated = true;
+                }
+            }
+        }
+        return enabled;
+    }
+
+    private void disable() {
+        enabled = false;
+        storedEntries.clear();
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toHex(MessageDigest digest) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param checker the checker that checked the unit
+     * @param unit the unit identifier. Ex: a file or module path
+     * @param hash the current hash of the unit files
+     * @return a copy of the stored violations or null if the unit wasn't checked with the same hash
+     */
+    public Map<String, List<Violation>> get(Class<? extends QSChecker> checker, String unit, String hash) {
+        if (!validate()) {
+            return null;
+        }
+        String key = getKey(checker, unit);
+        Entry entry = storedEntries.get(key);
+        if (entry == null || !entry.hash.equals(hash)) {
+            return null;
+        }
+        hits.incrementAndGet();
+        usedEntries.put(key, entry);
+        return copy(checker, entry.violations);
+    }
+
+    /**
+     * Store the violations found for a unit
+     */
+    public void put(Class<? extends QSChecker> checker, String unit, String hash, Map<String, List<Violation>> violations) {
+        checked.incrementAndGet();
+        if (!validate()) {
+            return;
+        }
+        Entry entry = new Entry(checker, unit, hash, copy(checker, violations));
+        String key = getKey(checker, unit);
+        storedEntries.put(key, entry);
+        usedEntries.put(key, entry);
+    }
+
+    private String getKey(Class<? extends QSChecker> checker, String unit) {
+        return checker.getName() + '\u0000' + unit;
+    }
+
+    private Map<String, List<Violation>> copy(Class<? extends QSChecker> checker, Map<String, List<Violation>> violations) {
+        Map<String, List<Violation>> copy = new TreeMap<String, List<Violation>>();
+        for (String file : violations.keySet()) {
+            copy.put(file, ViolationList.copyOf(checker, violations.get(file)));
+        }
+        return copy;
+    }
+
+    /**
+     * Write the units used in this run
+     */
+    public synchronized void save() throws IOException {
+        if (!validate()) {
+            return;
+        }
+        cacheFile.getParentFile().mkdirs();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(cacheFile))));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(usedEntries.size());
+            for (Entry entry : usedEntries.values()) {
+                out.writeUTF(entry.checker.getName());
+                out.writeUTF(entry.unit);
+                out.writeUTF(entry.hash);
+                out.writeInt(entry.violations.size());
+                for (String file : entry.violations.keySet()) {
+                    List<Violation> violations = entry.violations.get(file);
+                    out.writeUTF(file);
+                    out.writeInt(violations.size());
+                    for (Violation violation : violations) {
+                        out.writeInt(violation.getLineNumber());
+                        out.writeUTF(violation.getViolationMessage());
+                    }
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(cacheFile))));
+        try {
+            if (in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            String entriesFingerprint = in.readUTF();
+            Map<String, Entry> entries = new TreeMap<String, Entry>();
+            // The same messages repeat across files and units: keep a single copy of each
+            Map<String, String> messages = new HashMap<String, String>();
+            int entriesSize = in.readInt();
+            for (int e = 0; e < entriesSize; e++) {
+                Class<? extends QSChecker> checker = (Class<? extends QSChecker>) Class.forName(in.readUTF(), false, getClass().getClassLoader());
+                String unit = in.readUTF();
+                String hash = in.readUTF();
+                Map<String, List<Violation>> violations = new TreeMap<String, List<Violation>>();
+                int files = in.readInt();
+                for (int f = 0; f < files; f++) {
+                    String file = in.readUTF();
+                    int size = in.readInt();
+                    ViolationList fileViolations = new ViolationList(checker, size);
+                    for (int v = 0; v < size; v++) {
+                        int lineNumber = in.readInt();
+                        String message = in.readUTF();
+                        String sharedMessage = messages.get(message);
+                        if (sharedMessage == null) {
+                            messages.put(message, message);
+                            sharedMessage = message;
+                        }
+                        fileViolations.add(lineNumber, sharedMessage);
+                    }
+                    violations.put(file, fileViolations);
+                }
+                entries.put(getKey(checker, unit), new Entry(checker, unit, hash, violations));
+            }
+            storedEntries.putAll(entries);
+            storedFingerprint = entriesFingerprint;
+        } catch (ClassNotFoundException e) {
+            // A checker was removed: start from scratch
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Disable the cache and discard all loaded results and statistics
+     */
+    public synchronized void clear() {
+        enabled = false;
+        cacheFile = null;
+        fingerprint = null;
+        stacksHash = null;
+        storedFingerprint = null;
+        validated = false;
+        storedEntries.clear();
+        usedEntries.clear();
+        hits.set(0);
+        checked.set(0);
+    }
+
+    /**
+     * @return a human readable summary of the cache usage
+     */
+    public String getStatistics() {
+        return String.format("%s units reused, %s checked again", hits.get(), checked.get());
+    }
+
+    /**
+     * The violations found by a checker for a unit
+     */
+    private static class Entry {
+
+        private final Class<? extends QSChecker> checker;
+
+        private final String unit;
+
+        private final String hash;
+
+        private final Map<String, List<Violation>> violations;
+
+        public Entry(Class<? extends QSChecker> checker, String unit, String hash, Map<String, List<Violation>> violations) {
+            this.checker = checker;
+            this.unit = unit;
+            this.hash = hash;
+            this.violations = violations;
+        }
+
+    }
+
+}
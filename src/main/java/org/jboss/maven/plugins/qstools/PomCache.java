@@ -0,0 +1,316 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.annotations.Component;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
+import org.jboss.maven.plugins.qstools.xml.PomPathMatcher;
+import org.jboss.maven.plugins.qstools.xml.PomStreamReader;
+import org.jboss.maven.plugins.qstools.xml.PositionalDocument;
+import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
+import org.w3c.dom.Document;
+
+/**
+ * Keeps each pom.xml parsed during a run as a {@link PositionalDocument}, so every checker reads the same document
+ * instead of parsing the file again. Checkers that still need a DOM share the same {@link Document} copy.
+ *
+ * It also keeps the elements subscribed by the checkers. All paths registered with {@link #registerPaths(String...)}
+ * are read in a single streaming pass per pom.xml, together with the text and attribute values of the whole document
+ * when {@link #registerValues()} was called. When some checker of the run needs the whole documents (see
+ * {@link #useDocuments()}), the subscribed elements are taken from the parsed documents instead, so each pom.xml is
+ * still read only once.
+ *
+ * The parsed files are discarded by {@link RunScope}.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = PomCache.class)
+public class PomCache {
+
+    private final ConcurrentMap<File, FutureTask<PositionalDocument>> documents = new ConcurrentHashMap<File, FutureTask<PositionalDocument>>();
+
+    private final ConcurrentMap<File, FutureTask<StreamedPom>> streamedPoms = new ConcurrentHashMap<File, FutureTask<StreamedPom>>();
+
+    private final Set<String> subscribedPaths = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+    private volatile boolean useDocuments;
+
+    private volatile boolean collectValues;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong parses = new AtomicLong();
+
+    private final AtomicLong streams = new AtomicLong();
+
+    private final AtomicLong parseTime = new AtomicLong();
+
+    /**
+     * @return the parsed pom.xml of the given project
+     */
+    public Document getDocument(MavenProject project) throws Exception {
+        return getDocument(project.getFile());
+    }
+
+    /**
+     * @return a DOM copy of the parsed pom file, shared by all callers
+     */
+    public Document getDocument(File pomFile) throws Exception {
+        return getPositionalDocument(pomFile).toDocument();
+    }
+
+    /**
+     * @return the parsed pom.xml of the given project
+     */
+    public PositionalDocument getPositionalDocument(MavenProject project) throws Exception {
+        return getPositionalDocument(project.getFile());
+    }
+
+    /**
+     * Parse the given pom file only if it wasn't parsed before in this run
+     *
+     * @return the parsed pom file
+     */
+    public PositionalDocument getPositionalDocument(final File pomFile) throws Exception {
+        return load(documents, pomFile, new Callable<PositionalDocument>() {
+
+            @Override
+            public PositionalDocument call() throws Exception {
+                long start = System.nanoTime();
+                try {
+                    return PositionalXMLReader.read(new FileInputStream(pomFile));
+                } finally {
+                    parses.incrementAndGet();
+                    parseTime.addAndGet(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    /**
+     * Subscribe element paths, so they are read in the same streaming pass as the paths of the other checkers
+     *
+     * @param paths the element paths supported by {@link PomPathMatcher}
+     */
+    public void registerPaths(String... paths) {
+        subscribedPaths.addAll(Arrays.asList(paths));
+    }
+
+    /**
+     * Collect the text and attribute values of each pom.xml in the same streaming pass as the subscribed elements
+     */
+    public void registerValues() {
+        collectValues = true;
+    }
+
+    /**
+     * @param project the project whose pom.xml will be read
+     * @return every text and attribute value of the pom.xml, in document order. Whitespace only texts aren't included
+     */
+    public List<String> getValues(MavenProject project) throws Exception {
+        File pomFile = project.getFile();
+        registerValues();
+        StreamedPom streamedPom = getStreamedPom(pomFile);
+        if (streamedPom.values == null) {
+            // Values registered after this file was read: read it again including them
+            streamedPoms.remove(pomFile.getAbsoluteFile());
+            streamedPom = getStreamedPom(pomFile);
+        }
+        return streamedPom.values;
+    }
+
+    /**
+     * Take the subscribed elements from the parsed documents instead of streaming the files. Called when a checker of
+     * the run will parse every pom.xml anyway
+     */
+    public void useDocuments() {
+        useDocuments = true;
+    }
+
+    /**
+     * @param project the project whose pom.xml will be read
+     * @param paths the element paths supported by {@link PomPathMatcher}
+     * @return the elements matching any of the given paths, in document order
+     */
+    public List<PomElement> getElements(MavenProject project, String... paths) throws Exception {
+        File pomFile = project.getFile();
+        registerPaths(paths);
+        if (useDocuments || documents.containsKey(pomFile.getAbsoluteFile())) {
+            return getPositionalDocument(pomFile).getElements(new PomPathMatcher(paths));
+        }
+        StreamedPom streamedPom = getStreamedPom(pomFile);
+        if (!streamedPom.paths.containsAll(Arrays.asList(paths))) {
+            // Paths registered after this file was read: read it again including them
+            streamedPoms.remove(pomFile.getAbsoluteFile());
+            streamedPom = getStreamedPom(pomFile);
+        }
+        PomPathMatcher matcher = new PomPathMatcher(paths);
+        List<PomElement> elements = new ArrayList<PomElement>();
+        for (PomElement element : streamedPom.elements) {
+            if (matcher.matches(element.getPath())) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    private StreamedPom getStreamedPom(final File pomFile) throws Exception {
+        return load(streamedPoms, pomFile, new Callable<StreamedPom>() {
+
+            @Override
+            public StreamedPom call() throws Exception {
+                long start = System.nanoTime();
+                try {
+                    final StreamedPom streamedPom = new StreamedPom(new LinkedHashSet<String>(getSubscribedPaths()), collectValues);
+                    PomStreamReader.read(new FileInputStream(pomFile), new PomPathMatcher(streamedPom.paths), new PomElementHandler() {
+
+                        @Override
+                        public void element(PomElement element) {
+                            streamedPom.elements.add(element);
+                        }
+                    }, streamedPom.values);
+                    return streamedPom;
+                } finally {
+                    streams.incrementAndGet();
+                    parseTime.addAndGet(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    private Set<String> getSubscribedPaths() {
+        synchronized (subscribedPaths) {
+            return new LinkedHashSet<String>(subscribedPaths);
+        }
+    }
+
+    /**
+     * Run the loader only if the file wasn't loaded before. Concurrent callers wait for the same load.
+     */
+    private <T> T load(ConcurrentMap<File, FutureTask<T>> cache, File pomFile, Callable<T> loader) throws Exception {
+        File key = pomFile.getAbsoluteFile();
+        FutureTask<T> task = cache.get(key);
+        if (task == null) {
+            FutureTask<T> newTask = new FutureTask<T>(loader);
+            task = cache.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Don't keep failures: the file may be fixed before the next lookup
+            cache.remove(key, task);
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Discard all parsed documents, subscribed paths and statistics
+     */
+    public void clear() {
+        documents.clear();
+        streamedPoms.clear();
+        subscribedPaths.clear();
+        useDocuments = false;
+        collectValues = false;
+        hits.set(0);
+        parses.set(0);
+        streams.set(0);
+        parseTime.set(0);
+    }
+
+    /**
+     * @return how many lookups were served without reading the file
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return how many files were parsed to a DOM
+     */
+    public long getParses() {
+        return parses.get();
+    }
+
+    /**
+     * @return how many streaming passes were made
+     */
+    public long getStreams() {
+        return streams.get();
+    }
+
+    /**
+     * @return the time spent reading files, in milliseconds
+     */
+    public long getParseTimeMillis() {
+        return parseTime.get() / 1000000;
+    }
+
+    /**
+     * @return a human readable summary of the cache usage
+     */
+    public String getStatistics() {
+        return String.format("%s POM files parsed and %s streamed in %s ms, %s cache hits", getParses(), getStreams(), getParseTimeMillis(), getHits());
+    }
+
+    /**
+     * The elements read by a streaming pass and the paths they were read for
+     */
+    private static class StreamedPom {
+
+        private final Set<String> paths;
+
+        private final List<PomElement> elements = new ArrayList<PomElement>();
+
+        // Null if the values weren't collected
+        private final List<String> values;
+
+        public StreamedPom(Set<String> paths, boolean collectValues) {
+            this.paths = paths;
+            this.values = collectValues ? new ArrayList<String>() : null;
+        }
+
+    }
+
+}
@@ -32,9 +32,5 @@ public interface QSChecker {
     public Map<String, List<Violation>> check(final MavenProject project, final MavenSession mavenSession, final List<MavenProject> reactorProjects, final Log log) throws QSCheckerException;
     
     public String getCheckerDescription();
-    
-    public int getViolatonsQtd();
-    
-    public void resetViolationsQtd();
 
 }
@@ -24,6 +24,7 @@ package org.jboss.maven.plugins.qstools;
 
 import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
+import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.executeMojo;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.executionEnvironment;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.goal;
@@ -33,21 +34,39 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.doxia.sink.Sink;
 import org.apache.maven.doxia.siterenderer.Renderer;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -57,15 +76,22 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
 import org.codehaus.plexus.PlexusContainer;
-import org.jboss.jdf.stacks.client.StacksClient;
 import org.jboss.jdf.stacks.model.Stacks;
 import org.jboss.maven.plugins.qstools.checkers.AbstractCheckstyleChecker;
-import org.jboss.maven.plugins.qstools.checkers.BomVersionChecker;
+import org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker;
+import org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker;
+import org.jboss.maven.plugins.qstools.checkers.CombinedCheckstyleRun;
 import org.jboss.maven.plugins.qstools.checkers.FileHeaderChecker;
 import org.jboss.maven.plugins.qstools.checkers.GroupIdChecker;
 import org.jboss.maven.plugins.qstools.checkers.IllegalCharacterChecker;
 import org.jboss.maven.plugins.qstools.checkers.IndentationChecker;
+import org.jboss.maven.plugins.qstools.checkers.MavenCentralRepositoryChecker;
 import org.jboss.maven.plugins.qstools.checkers.TabSpaceChecker;
+import org.jboss.maven.plugins.qstools.checkers.UnusedPropertiesChecker;
+import org.jboss.maven.plugins.qstools.maven.CentralIndex;
+import org.jboss.maven.plugins.qstools.output.MetricsWriter;
+import org.jboss.maven.plugins.qstools.output.ViolationsWriter;
+import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
 import edu.emory.mathcs.backport.java.util.Collections;
 
@@ -94,6 +120,33 @@ public class QSCheckerReporter extends AbstractMavenReport {
     @Component
     private MavenSession mavenSession;
 
+    @Component
+    private PomCache pomCache;
+
+    @Component
+    private CombinedCheckstyleRun combinedCheckstyleRun;
+
+    @Component
+    private IncrementalCache incrementalCache;
+
+    @Component
+    private StacksProvider stacksProvider;
+
+    @Component
+    private BomIndex bomIndex;
+
+    @Component
+    private CentralRepositoryLookup centralRepositoryLookup;
+
+    @Component
+    private RunMetrics runMetrics;
+
+    @Component
+    private RunScope runScope;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
+
     @Parameter(property = "reactorProjects", readonly = true, required = true)
     private List<MavenProject> reactorProjects;
 
@@ -103,6 +156,31 @@ public class QSCheckerReporter extends AbstractMavenReport {
     @Parameter(property = "qstools.stacks.url")
     private URL stacksUrl;
 
+    /**
+     * Seconds before the cached stacks file is checked again for changes
+     */
+    @Parameter(property = StacksProvider.TTL, defaultValue = "86400")
+    private int stacksTtl;
+
+    /**
+     * Maximum number of concurrent lookups made by {@link MavenCentralRepositoryChecker}
+     */
+    @Parameter(property = CentralRepositoryLookup.THREADS, defaultValue = "4")
+    private int centralThreads;
+
+    /**
+     * Seconds before the stored {@link MavenCentralRepositoryChecker} lookups are made again
+     */
+    @Parameter(property = CentralRepositoryLookup.TTL, defaultValue = "86400")
+    private int centralTtl;
+
+    /**
+     * Answer the {@link MavenCentralRepositoryChecker} lookups from an index built by the centralIndex goal, without
+     * network
+     */
+    @Parameter(property = CentralIndex.INDEX)
+    private File centralIndex;
+
     /**
      * Overwrite the groupId for {@link GroupIdChecker}
      */
@@ -122,6 +200,57 @@ public class QSCheckerReporter extends AbstractMavenReport {
     @Parameter(property = "qstools.excludes")
     private String excludesExpression;
 
+    /**
+     * Number of threads used to run the checkers. The threads left by the running checkers are used to check the
+     * modules inside each {@link AbstractProjectChecker}. Use 1 to run them sequentially
+     */
+    @Parameter(property = AbstractProjectChecker.THREADS, defaultValue = "1")
+    private int threads;
+
+    /**
+     * The checkers that didn't finish yet, so each {@link AbstractProjectChecker} uses its share of the threads
+     */
+    private final AtomicInteger pendingCheckers = new AtomicInteger();
+
+    /**
+     * Run {@link FileHeaderChecker}, {@link IllegalCharacterChecker}, {@link IndentationChecker} and
+     * {@link TabSpaceChecker} in a single Checkstyle execution. Use false to run one Checkstyle execution per checker
+     */
+    @Parameter(property = AbstractCheckstyleChecker.COMBINED, defaultValue = "true")
+    private boolean combinedCheckstyle;
+
+    /**
+     * Reuse the violations stored by the previous run for the files that didn't change. The results are stored in
+     * target/qstools-incremental.cache
+     */
+    @Parameter(property = "qstools.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Also write the violations to the build directory in these comma separated formats: jsonl, sarif and checkstyle.
+     * Each checker results are written as soon as it finishes. JXR and the site plugin aren't executed in this mode
+     */
+    @Parameter(property = "qstools.formats")
+    private String formats;
+
+    /**
+     * How many of the slowest files of each checker are written to target/qstools-metrics.json
+     */
+    @Parameter(property = RunMetrics.TOP_FILES, defaultValue = "10")
+    private int metricsTopFiles;
+
+    /**
+     * Discard the parsed stacks files, BOM indexes and Checkstyle configurations kept by the previous runs of the same
+     * Maven process, like a persistent Maven daemon
+     */
+    @Parameter(property = RunScope.INVALIDATE, defaultValue = "false")
+    private boolean invalidateCaches;
+
+    /**
+     * The metrics of the checkers that finished in the last run, in the checkers order
+     */
+    private Map<QSChecker, CheckerMetrics> checkersMetrics = new LinkedHashMap<QSChecker, CheckerMetrics>();
+
     /*
      * (non-Javadoc)
      * 
@@ -189,10 +318,53 @@ public class QSCheckerReporter extends AbstractMavenReport {
      */
     @Override
     protected void executeReport(Locale locale) throws MavenReportException {
+        try {
+            Map<QSChecker, Map<String, List<Violation>>> results = check(null);
+            List<QSChecker> checkers = new ArrayList<QSChecker>(results.keySet());
+            List<Map<String, List<Violation>>> checkersViolations = new ArrayList<Map<String, List<Violation>>>(results.values());
+            Map<QSChecker, Integer> checkersViolationsQtd = new HashMap<QSChecker, Integer>();
+            for (int i = 0; i < checkers.size(); i++) {
+                checkersViolationsQtd.put(checkers.get(i), countViolations(checkersViolations.get(i)));
+            }
+            // Grouped in the checkers order, so the report is the same no matter which checker finished first
+            FilesViolations filesViolations = new FilesViolations(checkersViolations);
+            // The cross reference is only needed by the files with violations, and not at all by the result files
+            if (formats == null) {
+                executeJXRAndSitePlugins(filesViolations.getFiles());
+            }
+            startReport(checkers, checkersViolationsQtd, locale);
+            doFileSummary(filesViolations);
+            doFileReports(filesViolations);
+            // Print out the valid link, for example: 
+            //     Linux:  file:///home/username/quickstarts/helloworld/target/site/qschecker.html
+            //     Windows:  file:///C:/quickstarts/helloworld/target/site/qschecker.html
+            getLog().info("Your report is ready at file://" + mavenProject.getModel().getReporting().getOutputDirectory() + File.separator + getOutputName() + ".html");
+        } catch (Exception e) {
+            throw new MavenReportException(e.getMessage(), e);
+        }
+        endReport();
+
+    }
+
+    /**
+     * Run all checkers inside a {@link RunScope} and write the configured result files
+     * 
+     * @param budget stops the run as soon as it is exceeded, or null to run all checkers
+     * @return the violations of each checker, in the checkers order. The checkers cancelled because the budget was
+     *         exceeded aren't included
+     * @throws Exception
+     */
+    protected Map<QSChecker, Map<String, List<Violation>>> check(ViolationBudget budget) throws Exception {
+        runScope.begin();
+        if (invalidateCaches) {
+            runScope.invalidateSharedCaches();
+        }
+        runMetrics.open(metricsTopFiles);
+        ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+        List<ViolationsWriter> writers = new ArrayList<ViolationsWriter>();
         try {
             configureParameters();
-            configureStacks();
-            executeJXRAndSitePlugins();
+            Future<String> stacksHash = startPrefetch(prefetchExecutor);
 
             List<QSChecker> checkersFound = container.lookupList(QSChecker.class);
             // sort the checkers
@@ -204,26 +376,72 @@ public class QSCheckerReporter extends AbstractMavenReport {
                     return o1.getClass().getSimpleName().compareTo(o2.getClass().getSimpleName());
                 }
             });
-
-            Map<String, List<Violation>> globalFilesViolations = new TreeMap<String, List<Violation>>();
+            // Subscribe all element paths and Checkstyle configurations first, so each pom.xml is streamed only once and
+            // Checkstyle runs only once for all checkers
             for (QSChecker checker : checkers) {
-                getLog().info("Running Checker: " + checker.getClass().getSimpleName());
-                checker.resetViolationsQtd();
-                Map<String, List<Violation>> checkerViolations = checker.check(mavenProject, mavenSession, reactorProjects, getLog());
-                addCheckerViolationsToGlobalFilesViolations(globalFilesViolations, checkerViolations);
+                if (checker instanceof AbstractPomRuleChecker) {
+                    pomCache.registerPaths(((AbstractPomRuleChecker) checker).getSubscribedPaths());
+                } else if (checker instanceof UnusedPropertiesChecker) {
+                    pomCache.registerPaths(UnusedPropertiesChecker.PROPERTIES_PATH);
+                    pomCache.registerValues();
+                } else if (checker instanceof AbstractProjectChecker) {
+                    // It reads the whole document of every pom.xml, so the other checkers take their elements from it
+                    pomCache.useDocuments();
+                }
+                if (checker instanceof AbstractCheckstyleChecker) {
+                    combinedCheckstyleRun.register((AbstractCheckstyleChecker) checker);
+                }
+            }
+
+            writers = createWriters(checkers);
+            if (incremental) {
+                incrementalCache.open(new File(mavenProject.getBuild().getDirectory(), "qstools-incremental.cache"), getIncrementalFingerprint(checkers), stacksHash);
             }
-            startReport(checkers, locale);
-            doFileSummary(globalFilesViolations);
-            doFileReports(globalFilesViolations);
-            // Print out the valid link, for example: 
-            //     Linux:  file:///home/username/quickstarts/helloworld/target/site/qschecker.html
-            //     Windows:  file:///C:/quickstarts/helloworld/target/site/qschecker.html
-            getLog().info("Your report is ready at file://" + mavenProject.getModel().getReporting().getOutputDirectory() + File.separator + getOutputName() + ".html");
-        } catch (Exception e) {
-            throw new MavenReportException(e.getMessage(), e);
-        }
-        endReport();
 
+            List<Map<String, List<Violation>>> checkersViolations = runCheckers(checkers, writers, budget);
+            Map<QSChecker, Map<String, List<Violation>>> results = new LinkedHashMap<QSChecker, Map<String, List<Violation>>>();
+            for (int i = 0; i < checkers.size(); i++) {
+                if (checkersViolations.get(i) != null) {
+                    results.put(checkers.get(i), checkersViolations.get(i));
+                }
+            }
+            if (budget != null && budget.isExceeded()) {
+                // Don't wait for the network: the pending lookups are only needed by the cancelled checkers
+                prefetchExecutor.shutdownNow();
+                centralRepositoryLookup.cancel();
+                getLog().warn("Violation budget exceeded, " + (checkers.size() - results.size()) + " checkers cancelled: " + budget.getReason());
+            }
+            for (ViolationsWriter writer : writers) {
+                writer.end();
+                getLog().info("Violations written to " + writer.getFile());
+            }
+            checkersMetrics = new LinkedHashMap<QSChecker, CheckerMetrics>();
+            for (QSChecker checker : results.keySet()) {
+                checkersMetrics.put(checker, runMetrics.get(checker.getClass()));
+            }
+            MetricsWriter metricsWriter = new MetricsWriter(new File(mavenProject.getBuild().getDirectory(), "qstools-metrics.json"));
+            metricsWriter.write(checkersMetrics.values());
+            getLog().info("Checkers metrics written to " + metricsWriter.getFile());
+            getLog().info("POM cache: " + pomCache.getStatistics());
+            centralRepositoryLookup.save();
+            getLog().info("Maven Central lookups: " + centralRepositoryLookup.getStatistics());
+            if (incremental) {
+                incrementalCache.save();
+                getLog().info("Incremental check: " + incrementalCache.getStatistics());
+            }
+            return results;
+        } finally {
+            try {
+                // The prefetch uses the run scoped caches, so it must stop before they are cleared
+                prefetchExecutor.shutdownNow();
+                while (!prefetchExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    getLog().debug("Waiting for the prefetch to stop");
+                }
+            } finally {
+                runScope.end();
+                closeWriters(writers);
+            }
+        }
     }
 
     /**
@@ -232,6 +450,9 @@ public class QSCheckerReporter extends AbstractMavenReport {
      */
     private void configureParameters() throws IOException {
         container.getContext().put(GroupIdChecker.GROUPID, groupId);
+        container.getContext().put(AbstractProjectChecker.THREADS, threads);
+        container.getContext().put(AbstractProjectChecker.PENDING_CHECKERS, pendingCheckers);
+        container.getContext().put(AbstractCheckstyleChecker.COMBINED, combinedCheckstyle);
         String excludes = excludesExpression == null ? "" : excludesExpression;
         if (excludesFile != null) {
             excludes = readExcludesFromFile() + ", " + excludes;
@@ -258,61 +479,305 @@ public class QSCheckerReporter extends AbstractMavenReport {
     }
 
     /**
-     * Check if a Custom Stacks URL was informed and configure Stacks client
+     * Start reading the stacks file, indexing the BOMs and looking up the dependencies in Maven Central in background,
+     * so the network waits overlap with the local checkers. The checkers only wait when they need the data
      * 
+     * @param executor runs the stacks download, its hash and then the BOM index
+     * @return the hash of the stacks file contents, for the incremental check
      */
-    private void configureStacks() {
-        StacksClient stacksClient = new StacksClient();
-        if (stacksUrl != null) {
-            stacksClient.getActualConfiguration().setUrl(stacksUrl);
+    private Future<String> startPrefetch(ExecutorService executor) throws Exception {
+        getLog().info("Using the following Stacks YML file: " + (stacksUrl == null ? stacksProvider.getDefaultUrl() : stacksUrl));
+        Future<Stacks> stacks = executor.submit(new Callable<Stacks>() {
+
+            @Override
+            public Stacks call() throws Exception {
+                return stacksProvider.getStacks(stacksUrl, stacksTtl, mavenSession, getLog());
+            }
+        });
+        bomIndex.open(stacks, mavenProject, mavenSession, getLog());
+        // The stacks file was already read by the previous task
+        Future<String> stacksHash = executor.submit(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return stacksProvider.getStacksHash(stacksUrl, stacksTtl, mavenSession, getLog());
+            }
+        });
+        // Failures are thrown again to the checkers that use the index
+        executor.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                bomIndex.load();
+                return null;
+            }
+        });
+        centralRepositoryLookup.open(mavenSession, centralThreads, centralTtl, centralIndex);
+        centralRepositoryLookup.prefetch(reactorProjects);
+        return stacksHash;
+    }
+
+    /**
+     * Everything other than the checked files that changes the checkers results. If any of it changes, all files are
+     * checked again. The stacks file hash is added by the cache once the prefetch read it
+     * 
+     * @param checkers
+     * @return the plugin version, checkers and parameters
+     * @throws Exception
+     */
+    private String getIncrementalFingerprint(List<QSChecker> checkers) throws Exception {
+        StringBuilder sb = new StringBuilder(plugin.getVersion());
+        // SNAPSHOT builds change without changing the version
+        if (plugin.getPluginArtifact() != null && plugin.getPluginArtifact().getFile() != null) {
+            sb.append(':').append(plugin.getPluginArtifact().getFile().lastModified());
+        }
+        for (QSChecker checker : checkers) {
+            sb.append('\n').append(checker.getClass().getName());
         }
-        getLog().info("Using the following Stacks YML file: " + stacksClient.getActualConfiguration().getUrl());
-        Stacks stacks = stacksClient.getStacks();
-        container.getContext().put(BomVersionChecker.STACKS, stacks);
+        sb.append('\n').append(container.getContext().get(AbstractCheckstyleChecker.EXCLUDES));
+        sb.append('\n').append(groupId);
+        if (centralIndex != null) {
+            sb.append('\n').append(centralIndex.getAbsolutePath()).append(':').append(centralIndex.lastModified());
+        }
+        return sb.toString();
     }
 
     /**
-     * Add all violations found by a Checker to tha global File Violation
+     * Create and start a writer for each configured output format
      * 
-     * @param filesViolations
-     * @param checkerViolations
+     * @param checkers
+     * @return the started writers, empty if no format was configured
+     * @throws IOException
+     */
+    private List<ViolationsWriter> createWriters(List<QSChecker> checkers) throws IOException {
+        List<ViolationsWriter> writers = new ArrayList<ViolationsWriter>();
+        if (formats == null) {
+            return writers;
+        }
+        File directory = new File(mavenProject.getBuild().getDirectory());
+        File baseDirectory = new File(mavenSession.getExecutionRootDirectory());
+        try {
+            for (String format : formats.split(",")) {
+                if (format.trim().length() > 0) {
+                    ViolationsWriter writer = ViolationsWriter.create(format.trim().toLowerCase(Locale.ENGLISH), directory, baseDirectory);
+                    writers.add(writer);
+                    writer.start(checkers);
+                }
+            }
+        } catch (IOException e) {
+            closeWriters(writers);
+            throw e;
+        }
+        return writers;
+    }
+
+    /**
+     * Close the writers that weren't completed, without hiding the exception that stopped the run
      */
-    private void addCheckerViolationsToGlobalFilesViolations(Map<String, List<Violation>> filesViolations, Map<String, List<Violation>> checkerViolations) {
-        for (String file : checkerViolations.keySet()) {
-            List<Violation> ckviolations = checkerViolations.get(file);
-            if (filesViolations.get(file) == null) {
-                getLog().debug("New violations for file: " + file);
-                filesViolations.put(file, new ArrayList<Violation>());
+    private void closeWriters(List<ViolationsWriter> writers) {
+        for (ViolationsWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                getLog().warn("Could not close " + writer.getFile() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run all checkers, in parallel if more than one thread was configured. Each checker violations are handed to the
+     * writers as soon as it and the checkers before it finished
+     * 
+     * @param checkers
+     * @param writers the result files writers
+     * @param budget cancels the remaining checkers once exceeded, or null to run all checkers
+     * @return each checker violations, in the same order as the checkers list. Null for the cancelled checkers
+     * @throws Exception
+     */
+    private List<Map<String, List<Violation>>> runCheckers(List<QSChecker> checkers, List<ViolationsWriter> writers, ViolationBudget budget)
+        throws Exception {
+        List<Map<String, List<Violation>>> checkersViolations = new ArrayList<Map<String, List<Violation>>>();
+        for (int i = 0; i < checkers.size(); i++) {
+            checkersViolations.add(null);
+        }
+        pendingCheckers.set(checkers.size());
+        if (threads <= 1) {
+            for (int i = 0; i < checkers.size(); i++) {
+                checkersViolations.set(i, runChecker(checkers.get(i)));
+                writeViolations(writers, checkers.get(i), checkersViolations.get(i));
+                if (budget != null && budget.add(checkers.get(i), countViolations(checkersViolations.get(i)))) {
+                    break;
+                }
+            }
+            return checkersViolations;
+        }
+        getLog().info("Running checkers with " + threads + " threads");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Completions are taken as they happen, so the budget is checked as soon as any checker finishes
+            CompletionService<Map<String, List<Violation>>> completionService = new ExecutorCompletionService<Map<String, List<Violation>>>(executor);
+            Map<Future<Map<String, List<Violation>>>, Integer> futures = new HashMap<Future<Map<String, List<Violation>>>, Integer>();
+            for (final QSChecker checker : checkers) {
+                futures.put(completionService.submit(new Callable<Map<String, List<Violation>>>() {
+
+                    @Override
+                    public Map<String, List<Violation>> call() throws Exception {
+                        return runChecker(checker);
+                    }
+                }), futures.size());
+            }
+            int written = 0;
+            for (int finished = 0; finished < checkers.size(); finished++) {
+                Future<Map<String, List<Violation>>> future = completionService.take();
+                int index = futures.get(future);
+                checkersViolations.set(index, future.get());
+                // Keep the checkers order in the result files
+                for (; written < checkers.size() && checkersViolations.get(written) != null; written++) {
+                    writeViolations(writers, checkers.get(written), checkersViolations.get(written));
+                }
+                if (budget != null && budget.add(checkers.get(index), countViolations(checkersViolations.get(index)))) {
+                    // Stop the lookups first, so the cancelled checkers don't start new ones
+                    centralRepositoryLookup.cancel();
+                    for (Future<Map<String, List<Violation>>> pending : futures.keySet()) {
+                        pending.cancel(true);
+                    }
+                    // The finished checkers after a cancelled one are still written
+                    for (; written < checkers.size(); written++) {
+                        if (checkersViolations.get(written) != null) {
+                            writeViolations(writers, checkers.get(written), checkersViolations.get(written));
+                        }
+                    }
+                    break;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
             }
-            filesViolations.get(file).addAll(ckviolations);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+            // The run scoped caches are cleared after this method returns, so the interrupted checkers must stop first
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                getLog().debug("Waiting for the cancelled checkers to stop");
+            }
+        }
+        return checkersViolations;
+    }
+
+    private Map<String, List<Violation>> runChecker(QSChecker checker) throws QSCheckerException {
+        getLog().info("Running Checker: " + checker.getClass().getSimpleName());
+        CheckerMetrics metrics = runMetrics.get(checker.getClass());
+        long start = System.nanoTime();
+        long cpuStart = RunMetrics.getCurrentThreadCpuTime();
+        try {
+            Map<String, List<Violation>> violations = checker.check(mavenProject, mavenSession, reactorProjects, getLog());
+            metrics.addViolations(countViolations(violations));
+            return violations;
+        } finally {
+            metrics.addWallTime(System.nanoTime() - start);
+            metrics.addCpuTime(RunMetrics.getCurrentThreadCpuTime() - cpuStart);
+            pendingCheckers.decrementAndGet();
         }
     }
 
     /**
-     * @throws MojoExecutionException
+     * @param checkerViolations
+     * @return the number of violations found by a Checker
+     */
+    private int countViolations(Map<String, List<Violation>> checkerViolations) {
+        int violationsQtd = 0;
+        for (List<Violation> violations : checkerViolations.values()) {
+            violationsQtd += violations.size();
+        }
+        return violationsQtd;
+    }
+
+    private void writeViolations(List<ViolationsWriter> writers, QSChecker checker, Map<String, List<Violation>> violations) throws IOException {
+        for (ViolationsWriter writer : writers) {
+            writer.write(checker, violations);
+        }
+    }
+
+    /**
+     * Generate the cross reference of the Java files with violations and the site resources used by the report
+     * 
+     * @param files the files with violations
+     * @throws Exception
      * 
      */
-    private void executeJXRAndSitePlugins() throws MojoExecutionException {
+    private void executeJXRAndSitePlugins(Set<String> files) throws Exception {
+        String outputDirectory = mavenProject.getModel().getReporting().getOutputDirectory();
         // Execute JXR Plugin
-        executeMojo(plugin(groupId("org.apache.maven.plugins"), artifactId("maven-jxr-plugin"), version("2.3")), goal("aggregate"), configuration(),
-            executionEnvironment(mavenProject, mavenSession, pluginManager));
+        executeJXRPlugin(files, "src/main/java", new File(outputDirectory, "xref"), "aggregate");
 
         // Execute JXR Plugin for test sources
-        executeMojo(plugin(groupId("org.apache.maven.plugins"), artifactId("maven-jxr-plugin"), version("2.3")), goal("test-aggregate"), configuration(),
-            executionEnvironment(mavenProject, mavenSession, pluginManager));
+        executeJXRPlugin(files, "src/test/java", new File(outputDirectory, "xref-test"), "test-aggregate");
 
-        // Execute Site Plugin
-        executeMojo(plugin(groupId("org.apache.maven.plugins"), artifactId("maven-site-plugin"), version("3.2")), goal("site"), configuration(),
-            executionEnvironment(mavenProject, mavenSession, pluginManager));
+        // Execute Site Plugin only if the report css and images aren't there yet
+        if (!new File(outputDirectory, "css").isDirectory()) {
+            executeMojo(plugin(groupId("org.apache.maven.plugins"), artifactId("maven-site-plugin"), version("3.2")), goal("site"), configuration(),
+                executionEnvironment(mavenProject, mavenSession, pluginManager));
+        }
+    }
+
+    /**
+     * Execute the JXR Plugin only for the source files whose cross reference is missing or older than the source. The
+     * hash of each source file is kept in the cross reference directory, by its path in the reactor
+     * 
+     * @param files the files with violations, relative to the execution root directory
+     * @param sourceDirectory the source directory of the files to cross reference
+     * @param xrefDirectory where JXR writes the cross reference
+     * @param jxrGoal the JXR goal for the source directory
+     * @throws Exception
+     */
+    private void executeJXRPlugin(Set<String> files, String sourceDirectory, File xrefDirectory, String jxrGoal) throws Exception {
+        File hashesFile = new File(xrefDirectory, ".qstools-xref.properties");
+        Properties hashes = new Properties();
+        if (hashesFile.isFile()) {
+            InputStream is = new FileInputStream(hashesFile);
+            try {
+                hashes.load(is);
+            } finally {
+                is.close();
+            }
+        }
+        List<Element> includes = new ArrayList<Element>();
+        for (String file : files) {
+            int pathIndex = file.lastIndexOf(sourceDirectory);
+            // Files outside the reactor can't be cross referenced
+            if (pathIndex > 0 && file.endsWith(".java") && !new File(file).isAbsolute()) {
+                String path = file.substring(pathIndex + sourceDirectory.length() + 1);
+                // Keyed by the reactor path: modules may have classes with the same package path
+                String hash = incrementalCache.hash(Arrays.asList(new File(mavenSession.getExecutionRootDirectory(), file)));
+                File xrefFile = new File(xrefDirectory, path.replaceAll("\\.java$", ".html"));
+                if (!xrefFile.exists() || !hash.equals(hashes.getProperty(file))) {
+                    includes.add(element("include", path));
+                    hashes.setProperty(file, hash);
+                }
+            }
+        }
+        if (includes.isEmpty()) {
+            return;
+        }
+        executeMojo(plugin(groupId("org.apache.maven.plugins"), artifactId("maven-jxr-plugin"), version("2.3")), goal(jxrGoal),
+            configuration(element("includes", includes.toArray(new Element[includes.size()]))), executionEnvironment(mavenProject, mavenSession, pluginManager));
+        OutputStream os = new FileOutputStream(hashesFile);
+        try {
+            hashes.store(os, "Source files hashes of the cross reference");
+        } finally {
+            os.close();
+        }
     }
 
     /**
      * Prints a File and each violations it have.
      * 
-     * @param fileViolations
+     * @param filesViolations
      */
-    private void doFileReports(Map<String, List<Violation>> fileViolations) {
+    private void doFileReports(FilesViolations filesViolations) {
         Sink sink = getSink();
+        Map<String, String> xrefLinks = getXrefLinks(filesViolations.getFiles());
 
         sink.section1(); // Start Section 1
         sink.sectionTitle1();
@@ -320,7 +785,7 @@ public class QSCheckerReporter extends AbstractMavenReport {
         sink.sectionTitle1_();
 
         // File Sections
-        for (String file : fileViolations.keySet()) {
+        for (String file : filesViolations.getFiles()) {
             sink.anchor(file.replace('/', '.'));
             sink.anchor_();
 
@@ -345,53 +810,84 @@ public class QSCheckerReporter extends AbstractMavenReport {
             sink.tableHeaderCell_();
             sink.tableRow_();
 
-            // Each file violation
-            List<Violation> violations = fileViolations.get(file);
-            for (Violation violation : violations) {
+            // Each file violation, read from the checkers results without copying them
+            String xrefLink = xrefLinks.get(file);
+            for (List<Violation> violations : filesViolations.getViolations(file)) {
+                for (Violation violation : violations) {
+                    doViolationRow(sink, violation, xrefLink);
+                }
+            }
+            sink.table_();
+            sink.section2_(); // End Section 2
+        }
+        sink.section1_(); // End Section 1
+    }
 
-                sink.tableRow();
+    /**
+     * Prints a violation row
+     * 
+     * @param sink
+     * @param violation
+     * @param xrefLink the cross reference page of the violation file or null if it has none
+     */
+    private void doViolationRow(Sink sink, Violation violation, String xrefLink) {
+        sink.tableRow();
 
-                sink.tableCell();
-                sink.text(violation.getSourceChecker().getSimpleName());
-                sink.tableCell_();
+        sink.tableCell();
+        sink.text(violation.getSourceChecker().getSimpleName());
+        sink.tableCell_();
 
-                sink.tableCell();
-                sink.text(violation.getViolationMessage());
-                sink.tableCell_();
+        sink.tableCell();
+        sink.text(violation.getViolationMessage());
+        sink.tableCell_();
 
-                sink.tableCell();
+        sink.tableCell();
+        if (xrefLink != null) {
+            sink.link(xrefLink + "#" + violation.getLineNumber());
+        }
+        sink.text(String.valueOf(violation.getLineNumber()));
+        if (xrefLink != null) {
+            sink.link_();
+        }
+        sink.tableCell_();
 
-                // Only Java files has XREF
-                String expression = "src/main/java";
-                int pathIndex = file.lastIndexOf(expression);
-                if (pathIndex > 0) {
-                    String path = file.substring(pathIndex + expression.length()).replaceAll("\\.java$", ".html");
-                    File xrefSource = new File(mavenProject.getModel().getReporting().getOutputDirectory() + "/xref/" + path);
-                    if (xrefSource.exists()) {
-                        String linelink = xrefSource.getAbsolutePath() + "#" + violation.getLineNumber();
-                        sink.link(linelink);
-                    }
-                }
-                expression = "src/test/java";
-                pathIndex = file.lastIndexOf(expression);
-                if (pathIndex > 0) {
-                    String path = file.substring(pathIndex + expression.length()).replaceAll("\\.java$", ".html");
-                    File xrefTestSource = new File(mavenProject.getModel().getReporting().getOutputDirectory() + "/xref-test/" + path);
-                    if (xrefTestSource.exists()) {
-                        String linelink = xrefTestSource.getAbsolutePath() + "#" + violation.getLineNumber();
-                        sink.link(linelink);
-                    }
-                }
-                sink.text(String.valueOf(violation.getLineNumber()));
-                sink.link_();
-                sink.tableCell_();
+        sink.tableRow_();
+    }
 
-                sink.tableRow_();
+    /**
+     * Find the cross reference page of each file once, instead of once per violation. Only Java files has XREF
+     * 
+     * @param files the files with violations
+     * @return the cross reference page of the files that have one
+     */
+    private Map<String, String> getXrefLinks(Set<String> files) {
+        String outputDirectory = mavenProject.getModel().getReporting().getOutputDirectory();
+        Map<String, String> xrefLinks = new HashMap<String, String>();
+        for (String file : files) {
+            if (!file.endsWith(".java")) {
+                continue;
+            }
+            String xrefLink = getXrefLink(file, "src/main/java", new File(outputDirectory, "xref"));
+            if (xrefLink == null) {
+                xrefLink = getXrefLink(file, "src/test/java", new File(outputDirectory, "xref-test"));
+            }
+            if (xrefLink != null) {
+                xrefLinks.put(file, xrefLink);
             }
-            sink.table_();
-            sink.section2_(); // End Section 2
         }
-        sink.section1_(); // End Section 1
+        return xrefLinks;
+    }
+
+    private String getXrefLink(String file, String sourceDirectory, File xrefDirectory) {
+        int pathIndex = file.lastIndexOf(sourceDirectory);
+        if (pathIndex > 0) {
+            String path = file.substring(pathIndex + sourceDirectory.length(), file.length() - ".java".length()) + ".html";
+            File xrefSource = new File(xrefDirectory, path);
+            if (xrefSource.exists()) {
+                return xrefSource.getAbsolutePath();
+            }
+        }
+        return null;
     }
 
     /**
@@ -399,7 +895,7 @@ public class QSCheckerReporter extends AbstractMavenReport {
      * 
      * @param filesViolations
      */
-    private void doFileSummary(Map<String, List<Violation>> filesViolations) {
+    private void doFileSummary(FilesViolations filesViolations) {
         Sink sink = getSink();
         sink.section1(); // Start Section 1
         sink.sectionTitle1();
@@ -418,7 +914,7 @@ public class QSCheckerReporter extends AbstractMavenReport {
         sink.tableHeaderCell_();
         sink.tableRow();
 
-        for (String file : filesViolations.keySet()) {
+        for (String file : filesViolations.getFiles()) {
             sink.tableRow();
             sink.tableCell();
             sink.link("#" + file.replace('/', '.'));
@@ -427,7 +923,7 @@ public class QSCheckerReporter extends AbstractMavenReport {
             sink.tableCell_();
 
             sink.tableCell();
-            sink.text(String.valueOf(filesViolations.get(file).size()));
+            sink.text(String.valueOf(filesViolations.count(file)));
             sink.tableCell_();
             sink.tableRow();
 
@@ -441,12 +937,13 @@ public class QSCheckerReporter extends AbstractMavenReport {
      * Start the Reporter HTML
      * 
      * @param checkers
+     * @param checkersViolationsQtd
      * 
      * @param locale
      * @param sink
      * 
      */
-    private void startReport(List<QSChecker> checkers, Locale locale) {
+    private void startReport(List<QSChecker> checkers, Map<QSChecker, Integer> checkersViolationsQtd, Locale locale) {
         Sink sink = getSink();
         sink.head();
         sink.title();
@@ -475,6 +972,12 @@ public class QSCheckerReporter extends AbstractMavenReport {
         sink.tableHeaderCell();
         sink.text("Violations qtd.");
         sink.tableHeaderCell_();
+
+        for (String header : new String[] { "Time (ms)", "CPU time (ms)", "Files", "Bytes read", "Resolutions" }) {
+            sink.tableHeaderCell();
+            sink.text(header);
+            sink.tableHeaderCell_();
+        }
         sink.tableRow();
 
         for (QSChecker checker : checkers) {
@@ -491,9 +994,20 @@ public class QSCheckerReporter extends AbstractMavenReport {
             sink.tableCell_();
 
             sink.tableCell();
-            sink.text(String.valueOf(checker.getViolatonsQtd()));
+            sink.text(String.valueOf(checkersViolationsQtd.get(checker)));
             sink.tableCell_();
 
+            CheckerMetrics metrics = checkersMetrics.get(checker);
+            // Checkers cancelled by a violation budget have no metrics
+            String[] values = metrics == null ? new String[] { "", "", "", "", "" } : new String[] { String.valueOf(metrics.getWallTimeMillis()),
+                String.valueOf(metrics.getCpuTimeMillis()), String.valueOf(metrics.getFiles()), String.valueOf(metrics.getBytes()),
+                String.valueOf(metrics.getResolutions()) };
+            for (String value : values) {
+                sink.tableCell();
+                sink.text(value);
+                sink.tableCell_();
+            }
+
             sink.tableRow();
         }
         sink.table_();
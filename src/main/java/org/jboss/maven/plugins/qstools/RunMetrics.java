@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.plexus.component.annotations.Component;
+
+/**
+ * Keeps the {@link CheckerMetrics} of each checker executed in a run.
+ * 
+ * The metrics are cleared by {@link RunScope}.
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+@Component(role = RunMetrics.class)
+public class RunMetrics {
+
+    /**
+     * How many of the slowest files are kept per checker
+     */
+    public static final String TOP_FILES = "qstools.metrics.topFiles";
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final ConcurrentMap<Class<? extends QSChecker>, CheckerMetrics> metrics = new ConcurrentHashMap<Class<? extends QSChecker>, CheckerMetrics>();
+
+    private volatile int topFiles = 10;
+
+    /**
+     * Discard the previous metrics
+     * 
+     * @param topFiles how many of the slowest files are kept per checker
+     */
+    public void open(int topFiles) {
+        metrics.clear();
+        this.topFiles = topFiles;
+    }
+
+    /**
+     * @return the metrics of the checker, created on the first call of the run
+     */
+    public CheckerMetrics get(Class<? extends QSChecker> checker) {
+        CheckerMetrics checkerMetrics = metrics.get(checker);
+        if (checkerMetrics == null) {
+            CheckerMetrics newMetrics = new CheckerMetrics(checker, topFiles);
+            checkerMetrics = metrics.putIfAbsent(checker, newMetrics);
+            if (checkerMetrics == null) {
+                checkerMetrics = newMetrics;
+            }
+        }
+        return checkerMetrics;
+    }
+
+    /**
+     * Discard all metrics
+     */
+    public void clear() {
+        metrics.clear();
+    }
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds, or 0 if the JVM can't measure it
+     */
+    public static long getCurrentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+}
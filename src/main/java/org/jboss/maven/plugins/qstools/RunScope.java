@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.jboss.maven.plugins.qstools.checkers.CombinedCheckstyleRun;
+
+/**
+ * The lifecycle of the state kept by the QSTools components.
+ *
+ * The components and checkers are singletons, so they outlive a build when Maven runs as a persistent daemon. The state
+ * that belongs to a run (parsed POMs, interpolated dependencies, Maven Central lookups, incremental results and
+ * metrics) is discarded by {@link #begin()} and {@link #end()}, so nothing leaks from a build to the next one.
+ *
+ * The shared caches only hold what doesn't depend on the checked projects: the parsed stacks files, the mapped BOM
+ * indexes and the combined Checkstyle configurations. They stay warm for the next builds, bounded in size, and are
+ * checked against their files when reused. {@link #invalidateSharedCaches()} discards them.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = RunScope.class)
+public class RunScope {
+
+    public static final String INVALIDATE = "qstools.cache.invalidate";
+
+    @Requirement
+    private PomCache pomCache;
+
+    @Requirement
+    private CombinedCheckstyleRun combinedCheckstyleRun;
+
+    @Requirement
+    private IncrementalCache incrementalCache;
+
+    @Requirement
+    private StacksProvider stacksProvider;
+
+    @Requirement
+    private BomIndex bomIndex;
+
+    @Requirement
+    private CentralRepositoryLookup centralRepositoryLookup;
+
+    @Requirement
+    private DependencyProvider dependencyProvider;
+
+    @Requirement
+    private RunMetrics runMetrics;
+
+    /**
+     * Start a run. The state left by a run that didn't end is discarded
+     */
+    public void begin() {
+        clear();
+    }
+
+    /**
+     * End the run. The shared caches are kept for the next runs
+     */
+    public void end() {
+        clear();
+    }
+
+    /**
+     * Discard the caches shared by the runs. The files cached under the local repository are kept
+     */
+    public void invalidateSharedCaches() {
+        stacksProvider.invalidate();
+        bomIndex.invalidate();
+        combinedCheckstyleRun.invalidate();
+    }
+
+    private void clear() {
+        pomCache.clear();
+        combinedCheckstyleRun.clear();
+        incrementalCache.clear();
+        stacksProvider.clear();
+        bomIndex.clear();
+        centralRepositoryLookup.clear();
+        dependencyProvider.clear();
+        runMetrics.clear();
+    }
+
+}
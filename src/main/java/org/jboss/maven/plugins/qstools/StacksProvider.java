@@ -0,0 +1,334 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.jboss.jdf.stacks.client.DefaultStacksClientConfiguration;
+import org.jboss.jdf.stacks.model.Stacks;
+import org.jboss.jdf.stacks.parser.Parser;
+
+/**
+ * Provides the parsed Stacks file to all goals and checkers, so a build downloads and parses it only once.
+ *
+ * The downloaded file is kept under the local repository (.cache/qstools/stacks). It is used as is until the TTL
+ * expires, then it is checked again with a conditional request. Offline builds and failed downloads use the cached file.
+ * file: URLs are neither copied nor subject to the TTL: the file itself is read, and parsed again whenever it changes.
+ *
+ * Each run reads the cached file at most once, see {@link RunScope}. The parsed stacks are kept for the next runs of
+ * the same Maven process while the cached file doesn't change, until {@link #invalidate()} is called.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = StacksProvider.class)
+public class StacksProvider {
+
+    public static final String TTL = "qstools.stacks.ttl";
+
+    private static final String LAST_CHECKED = "lastChecked";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    /**
+     * How many parsed stacks files are kept for the next runs
+     */
+    private static final int MAX_PARSED_STACKS = 4;
+
+    /**
+     * The parsed stacks of each URL, shared by the runs
+     */
+    private final BoundedCache<String, ParsedStacks> parsedStacks = new BoundedCache<String, ParsedStacks>(MAX_PARSED_STACKS);
+
+    private final ConcurrentMap<String, FutureTask<ParsedStacks>> stacksByUrl = new ConcurrentHashMap<String, FutureTask<ParsedStacks>>();
+
+    /**
+     * @return the Stacks URL used when none is informed
+     */
+    public URL getDefaultUrl() {
+        return new DefaultStacksClientConfiguration().getUrl();
+    }
+
+    /**
+     * Read the Stacks file only if it wasn't read before in this run, and parse it only if it changed since the last run
+     *
+     * @param stacksUrl the Stacks file URL or null to use the default one. file: URLs are read in place
+     * @param ttl seconds before the cached file is checked again
+     * @param mavenSession used to find the local repository and if the build is offline
+     * @param log
+     * @return the parsed Stacks file
+     */
+    public Stacks getStacks(URL stacksUrl, int ttl, MavenSession mavenSession, Log log) throws Exception {
+        return load(stacksUrl, ttl, mavenSession, log).stacks;
+    }
+
+    /**
+     * Read the Stacks file like {@link #getStacks(URL, int, MavenSession, Log)}
+     *
+     * @return the SHA-1 of the Stacks file contents
+     */
+    public String getStacksHash(URL stacksUrl, int ttl, MavenSession mavenSession, Log log) throws Exception {
+        return load(stacksUrl, ttl, mavenSession, log).hash;
+    }
+
+    private ParsedStacks load(URL stacksUrl, final int ttl, final MavenSession mavenSession, final Log log) throws Exception {
+        final URL url = stacksUrl == null ? getDefaultUrl() : stacksUrl;
+        final String key = url.toExternalForm();
+        FutureTask<ParsedStacks> task = stacksByUrl.get(key);
+        if (task == null) {
+            FutureTask<ParsedStacks> newTask = new FutureTask<ParsedStacks>(new Callable<ParsedStacks>() {
+
+                @Override
+                public ParsedStacks call() throws Exception {
+                    File cacheDir = new File(mavenSession.getLocalRepository().getBasedir(), ".cache/qstools/stacks");
+                    File yamlFile = fetch(url, ttl, mavenSession.isOffline(), cacheDir, log);
+                    ParsedStacks parsed = parsedStacks.get(key);
+                    if (parsed != null && parsed.isCurrent(yamlFile)) {
+                        return parsed;
+                    }
+                    long lastModified = yamlFile.lastModified();
+                    InputStream is = new FileInputStream(yamlFile);
+                    byte[] contents;
+                    try {
+                        contents = IOUtil.toByteArray(is);
+                    } finally {
+                        is.close();
+                    }
+                    Stacks stacks = new Parser().parse(new ByteArrayInputStream(contents));
+                    parsed = new ParsedStacks(yamlFile, lastModified, contents.length, stacks, hash(contents));
+                    parsedStacks.put(key, parsed);
+                    return parsed;
+                }
+            });
+            task = stacksByUrl.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            stacksByUrl.remove(key, task);
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * End the run. The parsed stacks shared by the runs and the cached files are kept
+     */
+    public void clear() {
+        stacksByUrl.clear();
+    }
+
+    /**
+     * Discard the parsed stacks shared by the runs. The cached files are kept
+     */
+    public void invalidate() {
+        parsedStacks.clear();
+    }
+
+    /**
+     * Make sure the cached copy of the Stacks file is up to date
+     *
+     * @return the cached copy of the Stacks file, or the file itself for file: URLs
+     */
+    private File fetch(URL url, int ttl, boolean offline, File cacheDir, Log log) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            File localFile = FileUtils.toFile(url);
+            if (!localFile.isFile()) {
+                throw new FileNotFoundException("The Stacks file " + localFile + " doesn't exist");
+            }
+            log.debug("Using the local Stacks file " + localFile);
+            return localFile;
+        }
+        String name = hash(url.toExternalForm());
+        File yamlFile = new File(cacheDir, name + ".yaml");
+        File metadataFile = new File(cacheDir, name + ".properties");
+        Properties metadata = new Properties();
+        if (yamlFile.isFile() && metadataFile.isFile()) {
+            InputStream is = new FileInputStream(metadataFile);
+            try {
+                metadata.load(is);
+            } finally {
+                is.close();
+            }
+        } else {
+            yamlFile.delete();
+        }
+        boolean cached = yamlFile.isFile();
+        if (cached && offline) {
+            log.debug("Offline build. Using the cached Stacks file " + yamlFile);
+            return yamlFile;
+        }
+        long lastChecked = Long.parseLong(metadata.getProperty(LAST_CHECKED, "0"));
+        if (cached && System.currentTimeMillis() - lastChecked < ttl * 1000L) {
+            log.debug("Using the cached Stacks file " + yamlFile);
+            return yamlFile;
+        }
+        if (offline) {
+            throw new IOException("Offline build and the Stacks file " + url + " was never downloaded");
+        }
+        try {
+            download(url, cached, metadata, yamlFile);
+        } catch (IOException e) {
+            if (!cached) {
+                throw e;
+            }
+            log.warn("Could not check the Stacks file " + url + ". Using the cached one: " + e.getMessage());
+            return yamlFile;
+        }
+        metadata.setProperty(LAST_CHECKED, String.valueOf(System.currentTimeMillis()));
+        File tempFile = new File(cacheDir, name + ".properties.tmp");
+        OutputStream os = new FileOutputStream(tempFile);
+        try {
+            metadata.store(os, url.toExternalForm());
+        } finally {
+            os.close();
+        }
+        replace(tempFile, metadataFile);
+        return yamlFile;
+    }
+
+    /**
+     * Download the Stacks file, unless the server says the cached file is still current
+     */
+    private void download(URL url, boolean cached, Properties metadata, File yamlFile) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(30000);
+        connection.setReadTimeout(30000);
+        if (cached && connection instanceof HttpURLConnection) {
+            if (metadata.getProperty(ETAG) != null) {
+                connection.setRequestProperty("If-None-Match", metadata.getProperty(ETAG));
+            }
+            if (metadata.getProperty(LAST_MODIFIED) != null) {
+                connection.setIfModifiedSince(Long.parseLong(metadata.getProperty(LAST_MODIFIED)));
+            }
+            if (((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return;
+            }
+        }
+        yamlFile.getParentFile().mkdirs();
+        File tempFile = new File(yamlFile.getPath() + ".tmp");
+        InputStream is = connection.getInputStream();
+        try {
+            OutputStream os = new FileOutputStream(tempFile);
+            try {
+                IOUtil.copy(is, os);
+            } finally {
+                os.close();
+            }
+        } finally {
+            is.close();
+        }
+        replace(tempFile, yamlFile);
+        metadata.remove(ETAG);
+        metadata.remove(LAST_MODIFIED);
+        if (connection.getHeaderField("ETag") != null) {
+            metadata.setProperty(ETAG, connection.getHeaderField("ETag"));
+        }
+        if (connection.getLastModified() > 0) {
+            metadata.setProperty(LAST_MODIFIED, String.valueOf(connection.getLastModified()));
+        }
+    }
+
+    private void replace(File source, File target) throws IOException {
+        if (!source.renameTo(target)) {
+            target.delete();
+            if (!source.renameTo(target)) {
+                throw new IOException("Could not write " + target);
+            }
+        }
+    }
+
+    private String hash(String text) throws IOException {
+        return hash(text.getBytes("UTF-8"));
+    }
+
+    private String hash(byte[] bytes) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A parsed stacks file, the hash of its contents and the state of the file it was parsed from
+     */
+    private static class ParsedStacks {
+
+        private final File file;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final Stacks stacks;
+
+        private final String hash;
+
+        public ParsedStacks(File file, long lastModified, long length, Stacks stacks, String hash) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.stacks = stacks;
+            this.hash = hash;
+        }
+
+        /**
+         * @return true if the stacks were parsed from the given file and it didn't change since then
+         */
+        public boolean isCurrent(File yamlFile) {
+            return file.equals(yamlFile) && yamlFile.lastModified() == lastModified && yamlFile.length() == length;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Run the checkers without generating the report and fail the build when they find more violations than allowed.
+ *
+ * The remaining checkers and Maven Central lookups are cancelled as soon as the budget is exceeded.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Mojo(name = "verify", defaultPhase = LifecyclePhase.VERIFY, requiresDependencyResolution = ResolutionScope.COMPILE, requiresProject = true, threadSafe = true, aggregator = true)
+public class VerifyMojo extends QSCheckerReporter {
+
+    /**
+     * Violations allowed for all checkers together. Defaults to 0, or no overall limit when qstools.budget.checkers is
+     * set
+     */
+    @Parameter(property = "qstools.budget")
+    private Integer budget;
+
+    /**
+     * Violations allowed per checker, as comma separated CheckerName=number pairs. Ex:
+     * TabSpaceChecker=0,DependencyChecker=5
+     */
+    @Parameter(property = "qstools.budget.checkers")
+    private String checkersBudget;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.maven.reporting.AbstractMavenReport#execute()
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        ViolationBudget violationBudget;
+        try {
+            violationBudget = new ViolationBudget(budget == null && checkersBudget == null ? Integer.valueOf(0) : budget, checkersBudget);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        Map<QSChecker, Map<String, List<Violation>>> results;
+        try {
+            results = check(violationBudget);
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        for (Entry<QSChecker, Map<String, List<Violation>>> result : results.entrySet()) {
+            String checkerName = result.getKey().getClass().getSimpleName();
+            for (Entry<String, List<Violation>> fileViolations : result.getValue().entrySet()) {
+                for (Violation violation : fileViolations.getValue()) {
+                    getLog().warn(String.format("%s:%s: %s [%s]", fileViolations.getKey(), violation.getLineNumber(), violation.getViolationMessage(), checkerName));
+                }
+            }
+        }
+        if (violationBudget.isExceeded()) {
+            throw new MojoExecutionException(violationBudget.getReason());
+        }
+        getLog().info(String.format("%s violations found, within the budget", violationBudget.getViolations()));
+    }
+
+}
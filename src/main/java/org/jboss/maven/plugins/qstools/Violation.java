@@ -21,23 +21,34 @@
  */
 package org.jboss.maven.plugins.qstools;
 
-
 /**
+ * A violation found by a checker. The message is kept as a template and its arguments, and only formatted when it is
+ * read, so violations that are never rendered don't cost a formatted String each.
+ * 
  * @author Rafael Benevides
  * 
  */
 public class Violation {
 
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     private int lineNumber;
 
-    private String violationMessage;
-    
+    private String messageTemplate;
+
+    private Object[] arguments;
+
     private Class<? extends QSChecker> sourceChecker;
 
-    public Violation(Class<? extends QSChecker> checker, int lineNumber, String violationMessage) {
+    /**
+     * @param messageTemplate the message, or a {@link String#format(String, Object...)} template if there are arguments
+     * @param arguments the template arguments
+     */
+    public Violation(Class<? extends QSChecker> checker, int lineNumber, String messageTemplate, Object... arguments) {
         this.sourceChecker = checker;
         this.lineNumber = lineNumber;
-        this.violationMessage = violationMessage;
+        this.messageTemplate = messageTemplate;
+        this.arguments = arguments == null ? NO_ARGUMENTS : arguments;
     }
 
     /**
@@ -48,12 +59,26 @@ public class Violation {
     }
 
     /**
-     * @return the violationMessage
+     * @return the violationMessage, formatted from the template and its arguments
      */
     public String getViolationMessage() {
-        return violationMessage;
+        return arguments.length == 0 ? messageTemplate : String.format(messageTemplate, arguments);
+    }
+
+    /**
+     * @return the message template, shared by all violations with the same kind of message
+     */
+    public String getMessageTemplate() {
+        return messageTemplate;
+    }
+
+    /**
+     * @return the message template arguments. Empty if the template is the message
+     */
+    public Object[] getArguments() {
+        return arguments;
     }
-    
+
     /**
      * @return the sourceChecker
      */
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The number of violations allowed in a run, overall and per checker. The checkers results are added as they finish,
+ * so the run can be stopped as soon as the budget is exceeded.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class ViolationBudget {
+
+    private final Integer maxViolations;
+
+    private final Map<String, Integer> checkersMaxViolations = new HashMap<String, Integer>();
+
+    private int violations;
+
+    private String reason;
+
+    /**
+     * @param maxViolations the violations allowed for all checkers together or null for no overall limit
+     * @param checkersMaxViolations comma separated CheckerName=number pairs or null. Ex: TabSpaceChecker=0,DependencyChecker=5
+     */
+    public ViolationBudget(Integer maxViolations, String checkersMaxViolations) {
+        this.maxViolations = maxViolations;
+        if (checkersMaxViolations == null) {
+            return;
+        }
+        for (String checkerBudget : checkersMaxViolations.split(",")) {
+            if (checkerBudget.trim().length() == 0) {
+                continue;
+            }
+            String[] pair = checkerBudget.split("=");
+            try {
+                if (pair.length != 2) {
+                    throw new NumberFormatException();
+                }
+                this.checkersMaxViolations.put(pair[0].trim(), Integer.valueOf(pair[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid checker budget: " + checkerBudget + ". Use CheckerName=number");
+            }
+        }
+    }
+
+    /**
+     * Add the violations of a finished checker
+     *
+     * @return true if the budget is exceeded
+     */
+    public synchronized boolean add(QSChecker checker, int checkerViolations) {
+        violations += checkerViolations;
+        String checkerName = checker.getClass().getSimpleName();
+        Integer checkerMaxViolations = checkersMaxViolations.get(checkerName);
+        if (reason == null && checkerMaxViolations != null && checkerViolations > checkerMaxViolations) {
+            reason = String.format("%s found %s violations, more than the %s allowed", checkerName, checkerViolations, checkerMaxViolations);
+        }
+        if (reason == null && maxViolations != null && violations > maxViolations) {
+            reason = String.format("%s violations found, more than the %s allowed", violations, maxViolations);
+        }
+        return reason != null;
+    }
+
+    /**
+     * @return true if any checker or all checkers together found more violations than allowed
+     */
+    public synchronized boolean isExceeded() {
+        return reason != null;
+    }
+
+    /**
+     * @return why the budget was exceeded or null if it wasn't
+     */
+    public synchronized String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the violations added so far
+     */
+    public synchronized int getViolations() {
+        return violations;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The violations of one checker in one file, stored column by column: the line numbers in an int array and the message
+ * templates and their arguments in arrays of references. The checker and the file are kept once per list.
+ * 
+ * No {@link Violation} is kept: {@link #get(int)} returns a view sharing the template and arguments, and the message
+ * is only formatted when the view is read. Only appending is supported.
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+public class ViolationList extends AbstractList<Violation> implements RandomAccess {
+
+    private final Class<? extends QSChecker> checker;
+
+    private int size;
+
+    private int[] lineNumbers;
+
+    private String[] messageTemplates;
+
+    private Object[][] arguments;
+
+    public ViolationList(Class<? extends QSChecker> checker) {
+        this(checker, 4);
+    }
+
+    public ViolationList(Class<? extends QSChecker> checker, int capacity) {
+        this.checker = checker;
+        this.lineNumbers = new int[Math.max(1, capacity)];
+        this.messageTemplates = new String[lineNumbers.length];
+        this.arguments = new Object[lineNumbers.length][];
+    }
+
+    /**
+     * @return a copy of the violations, for the same checker
+     */
+    public static ViolationList copyOf(Class<? extends QSChecker> checker, Collection<Violation> violations) {
+        ViolationList copy = new ViolationList(checker, violations.size());
+        copy.addAll(violations);
+        return copy;
+    }
+
+    /**
+     * Append a violation without creating a {@link Violation}
+     * 
+     * @param messageTemplate the message, or a {@link String#format(String, Object...)} template if there are arguments
+     * @param messageArguments the template arguments
+     */
+    public void add(int lineNumber, String messageTemplate, Object... messageArguments) {
+        if (size == lineNumbers.length) {
+            int capacity = size * 2;
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            messageTemplates = Arrays.copyOf(messageTemplates, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+        }
+        lineNumbers[size] = lineNumber;
+        messageTemplates[size] = messageTemplate;
+        arguments[size] = messageArguments == null || messageArguments.length == 0 ? null : messageArguments;
+        size++;
+        modCount++;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractList#add(int, java.lang.Object)
+     */
+    @Override
+    public void add(int index, Violation violation) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Violations can only be appended");
+        }
+        if (violation.getSourceChecker() != checker) {
+            throw new IllegalArgumentException(violation.getSourceChecker().getSimpleName() + " violation added to the " + checker.getSimpleName() + " violations");
+        }
+        add(violation.getLineNumber(), violation.getMessageTemplate(), violation.getArguments());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public Violation get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Violation(checker, lineNumbers[index], messageTemplates[index], arguments[index]);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the checker that found the violations
+     */
+    public Class<? extends QSChecker> getChecker() {
+        return checker;
+    }
+
+}
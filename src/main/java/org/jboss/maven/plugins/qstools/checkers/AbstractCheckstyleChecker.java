@@ -16,90 +16,66 @@
  */
 package org.jboss.maven.plugins.qstools.checkers;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.checkstyle.CheckstyleExecutor;
-import org.apache.maven.plugin.checkstyle.CheckstyleExecutorRequest;
-import org.apache.maven.plugin.checkstyle.CheckstyleResults;
 import org.apache.maven.plugin.checkstyle.DefaultCheckstyleExecutor;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.context.Context;
+import org.jboss.maven.plugins.qstools.IncrementalCache;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.QSCheckerException;
+import org.jboss.maven.plugins.qstools.RunMetrics;
 import org.jboss.maven.plugins.qstools.Violation;
 
-import com.puppycrawl.tools.checkstyle.api.AuditEvent;
-
 public abstract class AbstractCheckstyleChecker implements QSChecker {
 
     public static final String EXCLUDES = "excludes";
 
+    public static final String COMBINED = "qstools.checkstyle.combined";
+
     @Requirement
     private Context context;
 
-    private int violationsQtd;
+    @Requirement(role = CheckstyleExecutor.class)
+    private DefaultCheckstyleExecutor checkstyleExecutor;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#getViolatonsQtd()
-     */
-    @Override
-    public int getViolatonsQtd() {
-        return violationsQtd;
-    }
+    @Requirement
+    private CombinedCheckstyleRun combinedCheckstyleRun;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#resetViolationsQtd()
-     */
-    @Override
-    public void resetViolationsQtd() {
-        violationsQtd = 0;
-    }
+    @Requirement
+    private IncrementalCache incrementalCache;
 
-    @Requirement(role = CheckstyleExecutor.class)
-    private DefaultCheckstyleExecutor checkstyleExecutor;
+    @Requirement
+    private RunMetrics runMetrics;
 
     @Override
     public Map<String, List<Violation>> check(MavenProject project, MavenSession mavenSession,
         List<MavenProject> reactorProjects, Log log) throws QSCheckerException {
         Map<String, List<Violation>> results = new TreeMap<String, List<Violation>>();
-        CheckstyleExecutorRequest executorRequest = new CheckstyleExecutorRequest();
 
         try {
-            executorRequest
-                .setReactorProjects(reactorProjects)
-                .setSourceDirectory(project.getBasedir())
-                .setTestSourceDirectory(project.getBasedir())
-                .setFailsOnError(false)
-                .setProject(project)
-                .setConfigLocation(getCheckstyleConfig())
-                .setLog(log)
-                .setEncoding("UTF-8")
-                .setHeaderLocation("header.txt")
-                .setIncludes(getIncludes())
-                .setExcludes("**/target/**, **/.*/*.*, .*, **/README.html, " + context.get(EXCLUDES));
-
-            CheckstyleResults checkstyleResults = checkstyleExecutor.executeCheckstyle(executorRequest);
-            Map<String, List<AuditEvent>> files = checkstyleResults.getFiles();
+            String excludes = "**/target/**, **/.*/*.*, .*, **/README.html, " + context.get(EXCLUDES);
+            Map<String, List<Violation>> files;
+            if (isCombined()) {
+                files = combinedCheckstyleRun.getViolations(this, project, reactorProjects, log, excludes);
+            } else {
+                String id = getClass().getSimpleName();
+                Map<String, AbstractCheckstyleChecker> checkers = Collections.<String, AbstractCheckstyleChecker> singletonMap(id, this);
+                CheckstyleExecution execution = new CheckstyleExecution(checkstyleExecutor, incrementalCache, runMetrics, checkers);
+                files = execution.execute(project, reactorProjects, log, getCheckstyleConfig(), excludes).get(id);
+            }
             for (String file : files.keySet()) {
-                List<AuditEvent> events = files.get(file);
+                List<Violation> violations = files.get(file);
                 // If file has events/violations
-                if (events.size() > 0) {
-                    List<Violation> violations = new ArrayList<Violation>();
-                    for (AuditEvent event : events) {
-                        // Add each checktyle AuditEvent as a new Violation
-                        violations.add(new Violation(this.getClass(), event.getLine(), event.getMessage()));
-                        violationsQtd++;
-                    }
+                if (violations.size() > 0) {
+                    // Each list was built for this checker only, so it is returned as is
                     results.put(file, violations);
                 }
             }
@@ -109,6 +85,13 @@ public abstract class AbstractCheckstyleChecker implements QSChecker {
         return results;
     }
 
+    /**
+     * @return true if this checker runs in the single Checkstyle execution shared by all Checkstyle checkers
+     */
+    private boolean isCombined() throws Exception {
+        return context.contains(COMBINED) && (Boolean) context.get(COMBINED) && combinedCheckstyleRun.isRegistered(this);
+    }
+
     abstract String getIncludes();
 
     abstract String getCheckstyleConfig();
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the 
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,  
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.checkers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.project.MavenProject;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
+import org.jboss.maven.plugins.qstools.xml.PomPathMatcher;
+import org.w3c.dom.Document;
+
+/**
+ * A checker that subscribes to pom.xml element paths instead of evaluating XPath over a DOM.
+ *
+ * The paths of all rule checkers are read in a single streaming pass per pom.xml (see
+ * {@link org.jboss.maven.plugins.qstools.PomCache#registerPaths(String...)}) and each checker receives only the elements
+ * it subscribed, with their line numbers.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public abstract class AbstractPomRuleChecker extends AbstractProjectChecker {
+
+    /**
+     * @return the element paths this checker subscribes. See {@link PomPathMatcher} for the supported paths
+     */
+    public abstract String[] getSubscribedPaths();
+
+    /**
+     * Create the handler that checks a single project. Projects may be checked concurrently, so the handler should keep
+     * the project state instead of the checker.
+     *
+     * @param project the project being checked
+     * @param checkContext the session and reactor of the running check
+     * @param results where the violations are added
+     * @return the handler that receives the subscribed elements of the project pom.xml
+     */
+    protected abstract PomElementHandler createHandler(MavenProject project, CheckContext checkContext, Map<String, List<Violation>> results)
+        throws Exception;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#checkProject(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected void checkProject(MavenProject mavenProject, CheckContext checkContext, Map<String, List<Violation>> results) throws Exception {
+        PomElementHandler handler = createHandler(mavenProject, checkContext, results);
+        String[] paths = getSubscribedPaths();
+        if (paths.length > 0) {
+            for (PomElement element : getPomCache().getElements(mavenProject, paths)) {
+                handler.element(element);
+            }
+        }
+        handler.endDocument();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, org.w3c.dom.Document, java.util.Map)
+     */
+    @Override
+    public final void processProject(MavenProject project, CheckContext checkContext, Document doc, Map<String, List<Violation>> results)
+        throws Exception {
+        // The subscribed elements are read from the same pom.xml, so the document isn't needed
+        checkProject(project, checkContext, results);
+    }
+
+}
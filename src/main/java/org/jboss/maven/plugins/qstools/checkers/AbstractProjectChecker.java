@@ -17,77 +17,94 @@
 package org.jboss.maven.plugins.qstools.checkers;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Parent;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.context.Context;
+import org.jboss.maven.plugins.qstools.CheckerMetrics;
 import org.jboss.maven.plugins.qstools.DependencyProvider;
+import org.jboss.maven.plugins.qstools.IncrementalCache;
+import org.jboss.maven.plugins.qstools.PomCache;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.QSCheckerException;
+import org.jboss.maven.plugins.qstools.RunMetrics;
 import org.jboss.maven.plugins.qstools.Violation;
+import org.jboss.maven.plugins.qstools.ViolationList;
+import org.jboss.maven.plugins.qstools.xml.PomIndex;
 import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 public abstract class AbstractProjectChecker implements QSChecker {
 
+    public static final String THREADS = "qstools.threads";
+
+    /**
+     * Context key of an AtomicInteger with the number of checkers of the run that didn't finish yet. The checkers
+     * running at the same time share the configured threads
+     */
+    public static final String PENDING_CHECKERS = "qstools.pendingCheckers";
+
     @Requirement
     private Context context;
 
     @Requirement
     private DependencyProvider dependencyProvider;
 
-    private XPath xPath = XPathFactory.newInstance().newXPath();
-
-    private Log log;
+    @Requirement
+    private PomCache pomCache;
 
-    private MavenSession mavenSession;
+    @Requirement
+    private IncrementalCache incrementalCache;
 
-    private int violationsQtd;
+    @Requirement
+    private RunMetrics runMetrics;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#getViolatonsQtd()
+    /**
+     * XPath instances aren't thread safe, so each thread gets its own
      */
-    @Override
-    public int getViolatonsQtd() {
-        return violationsQtd;
-    }
+    private static final ThreadLocal<XPath> xPath = new ThreadLocal<XPath>() {
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#resetViolationsQtd()
-     */
-    @Override
-    public void resetViolationsQtd() {
-        violationsQtd = 0;
-    }
+        @Override
+        protected XPath initialValue() {
+            return XPathFactory.newInstance().newXPath();
+        }
+    };
 
     @Override
     public Map<String, List<Violation>> check(MavenProject project, MavenSession mavenSession, List<MavenProject> reactorProjects, Log log) throws QSCheckerException {
-        this.mavenSession = mavenSession;
-        this.log = log;
+        // Builds running in the same Maven process share this checker, so the run state stays in the context
+        CheckContext checkContext = new CheckContext(mavenSession, reactorProjects, log);
         Map<String, List<Violation>> results = new TreeMap<String, List<Violation>>();
 
         try {
-            for (MavenProject mavenProject : reactorProjects) {
-                Document doc = PositionalXMLReader.readXML(new FileInputStream(mavenProject.getFile()));
-                processProject(mavenProject, doc, results);
+            // Merge in the reactor order, so the violations order doesn't depend on which module finished first
+            for (Map<String, List<Violation>> projectResults : checkProjects(reactorProjects, checkContext)) {
+                for (String file : projectResults.keySet()) {
+                    if (results.get(file) == null) {
+                        results.put(file, new ViolationList(getClass()));
+                    }
+                    results.get(file).addAll(projectResults.get(file));
+                }
             }
             if (results.size() > 0) {
-                violationsQtd = results.size();
                 log.info("There are " + results.size() + " checkers errors");
             }
         } catch (Exception e) {
@@ -96,51 +113,263 @@ public abstract class AbstractProjectChecker implements QSChecker {
         return results;
     }
 
+    /**
+     * Check all reactor projects, in parallel if more than one thread was configured
+     * 
+     * @param reactorProjects
+     * @return each project violations, in the same order as the reactor projects
+     * @throws Exception
+     */
+    private List<Map<String, List<Violation>>> checkProjects(List<MavenProject> reactorProjects, final CheckContext checkContext) throws Exception {
+        List<Map<String, List<Violation>>> projectsResults = new ArrayList<Map<String, List<Violation>>>();
+        int threads = Math.min(getThreads(), reactorProjects.size());
+        if (threads <= 1) {
+            for (MavenProject mavenProject : reactorProjects) {
+                projectsResults.add(checkProject(mavenProject, checkContext));
+            }
+            return projectsResults;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<String, List<Violation>>>> futures = new ArrayList<Future<Map<String, List<Violation>>>>();
+            for (final MavenProject mavenProject : reactorProjects) {
+                futures.add(executor.submit(new Callable<Map<String, List<Violation>>>() {
+
+                    @Override
+                    public Map<String, List<Violation>> call() throws Exception {
+                        // The checker thread CPU time is measured by the caller, but not the CPU time of these threads
+                        long cpuStart = RunMetrics.getCurrentThreadCpuTime();
+                        try {
+                            return checkProject(mavenProject, checkContext);
+                        } finally {
+                            getMetrics().addCpuTime(RunMetrics.getCurrentThreadCpuTime() - cpuStart);
+                        }
+                    }
+                }));
+            }
+            for (Future<Map<String, List<Violation>>> future : futures) {
+                projectsResults.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        return projectsResults;
+    }
+
+    /**
+     * @return the violations of a single project, collected apart from the other projects
+     */
+    private Map<String, List<Violation>> checkProject(MavenProject mavenProject, CheckContext checkContext) throws Exception {
+        String unit = null;
+        String hash = null;
+        if (incrementalCache.isEnabled() && isIncremental()) {
+            // Reuse the previous violations if none of the files the project check depends on changed
+            unit = mavenProject.getBasedir().getAbsolutePath();
+            hash = incrementalCache.hash(getInputFiles(mavenProject, checkContext));
+            Map<String, List<Violation>> cachedResults = incrementalCache.get(getClass(), unit, hash);
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+        }
+        Map<String, List<Violation>> checkedResults = new TreeMap<String, List<Violation>>();
+        long start = System.nanoTime();
+        checkProject(mavenProject, checkContext, checkedResults);
+        long bytes = 0;
+        for (File file : getReadFiles(mavenProject)) {
+            bytes += file.isFile() ? file.length() : 0;
+        }
+        String executionRoot = checkContext.getMavenSession().getExecutionRootDirectory();
+        getMetrics().addFile(getRelativePath(mavenProject.getFile(), executionRoot), System.nanoTime() - start, bytes);
+        // The violations are added by absolute path. Each file is relativized once per project
+        Map<String, List<Violation>> projectResults = new TreeMap<String, List<Violation>>();
+        for (String file : checkedResults.keySet()) {
+            projectResults.put(getRelativePath(new File(file), executionRoot), checkedResults.get(file));
+        }
+        if (hash != null) {
+            incrementalCache.put(getClass(), unit, hash, projectResults);
+        }
+        return projectResults;
+    }
+
+    /**
+     * The files the project check depends on. An incremental check only checks the project again if any of them
+     * changed. Things that aren't files, like the stacks contents or the checkers parameters, invalidate the whole
+     * incremental cache instead.
+     *
+     * @return the project pom.xml and the pom.xml of its parents inside the reactor
+     */
+    protected List<File> getInputFiles(MavenProject project, CheckContext checkContext) {
+        List<File> files = new ArrayList<File>();
+        files.add(project.getFile());
+        // The effective model inherits properties, dependencies and managed versions from the parents
+        files.addAll(getReactorParentFiles(project, checkContext));
+        return files;
+    }
+
+    /**
+     * The files the project check reads, for the metrics. Unlike the input files, it doesn't include the files that are
+     * only looked up or read by the checks of other projects, like the parents pom.xml.
+     *
+     * @return the project pom.xml
+     */
+    protected List<File> getReadFiles(MavenProject project) {
+        List<File> files = new ArrayList<File>();
+        files.add(project.getFile());
+        return files;
+    }
+
+    /**
+     * @return the pom.xml of each parent of the project that is part of the reactor, from the closest one
+     */
+    private List<File> getReactorParentFiles(MavenProject project, CheckContext checkContext) {
+        List<File> files = new ArrayList<File>();
+        // Found by coordinates: MavenProject.getParent() may build the parents outside the reactor
+        Parent parent = project.getModel().getParent();
+        while (parent != null) {
+            MavenProject parentProject = checkContext.getReactorProject(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+            if (parentProject == null || files.contains(parentProject.getFile())) {
+                break;
+            }
+            files.add(parentProject.getFile());
+            parent = parentProject.getModel().getParent();
+        }
+        return files;
+    }
+
+    /**
+     * @return false if the violations depend on more than the input files and must not be reused by an incremental
+     *         check
+     */
+    protected boolean isIncremental() {
+        return true;
+    }
+
+    /**
+     * Check a single project. The project pom.xml is parsed to a positional DOM and handed to
+     * {@link #processProject(MavenProject, CheckContext, Document, Map)}
+     */
+    protected void checkProject(MavenProject mavenProject, CheckContext checkContext, Map<String, List<Violation>> results) throws Exception {
+        Document doc = pomCache.getDocument(mavenProject);
+        processProject(mavenProject, checkContext, doc, results);
+    }
+
+    /**
+     * @return the number of threads used to check the reactor projects: the configured threads divided by the checkers
+     *         running at the same time, so the checker and module threads together stay close to the configured ones
+     */
+    private int getThreads() throws Exception {
+        int threads = context.contains(THREADS) ? (Integer) context.get(THREADS) : 1;
+        if (context.contains(PENDING_CHECKERS)) {
+            int runningCheckers = Math.min(threads, ((AtomicInteger) context.get(PENDING_CHECKERS)).get());
+            threads /= Math.max(1, runningCheckers);
+        }
+        return Math.max(1, threads);
+    }
+
     protected int getLineNumberFromNode(Node node) {
-        return Integer.parseInt((String) node.getUserData(PositionalXMLReader.LINE_NUMBER_KEY_NAME));
+        return (Integer) node.getUserData(PositionalXMLReader.LINE_NUMBER_KEY_NAME);
+    }
+
+    /**
+     * @param doc a document parsed by the {@link PomCache}
+     * @param path an absolute element path. Ex: /project/dependencies/dependency
+     * @return the elements with the given path, in document order
+     */
+    protected List<Element> getElementsByPath(Document doc, String path) {
+        return getIndex(doc).getElements(path);
+    }
+
+    /**
+     * @param doc a document parsed by the {@link PomCache}
+     * @param name a coordinate element name: groupId, artifactId or version
+     * @param text the element text
+     * @return the first element with the given name and text or null if there is none
+     */
+    protected Element getElementByText(Document doc, String name, String text) {
+        List<Element> elements = getIndex(doc).getElementsByText(name, text);
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+
+    private PomIndex getIndex(Document doc) {
+        PomIndex index = PositionalXMLReader.getIndex(doc);
+        if (index == null) {
+            throw new IllegalArgumentException("The document wasn't read by the PositionalXMLReader. Use the PomCache to read it");
+        }
+        return index;
     }
 
     /**
      * Adds violation referencing the pom.xml file as the violated file
      * 
+     * @param messageTemplate the message, or a {@link String#format(String, Object...)} template if there are arguments.
+     *        The message is only formatted when the report is rendered
+     * @param arguments the template arguments
      */
-    protected void addViolation(final File file, final Map<String, List<Violation>> results, int lineNumber, String violationMessage) {
-        // Get relative path based on maven work dir
-        String fileAsString = file.getAbsolutePath().replaceAll((mavenSession.getExecutionRootDirectory() + "/"), "");
-        if (results.get(fileAsString) == null) {
-            results.put(fileAsString, new ArrayList<Violation>());
+    protected void addViolation(final File file, final Map<String, List<Violation>> results, int lineNumber, String messageTemplate, Object... arguments) {
+        // Relativized to the execution root once the project check finishes
+        String fileAsString = file.getAbsolutePath();
+        ViolationList violations = (ViolationList) results.get(fileAsString);
+        if (violations == null) {
+            violations = new ViolationList(getClass());
+            results.put(fileAsString, violations);
         }
-        results.get(fileAsString).add(new Violation(getClass(), lineNumber, violationMessage));
+        violations.add(lineNumber, messageTemplate, arguments);
     }
 
-    public abstract void processProject(final MavenProject project, Document doc, final Map<String, List<Violation>> results) throws Exception;
+    /**
+     * @return the file path relative to the directory, or the absolute path if the file isn't inside it
+     */
+    static String getRelativePath(File file, String directory) {
+        String path = file.getAbsolutePath();
+        String prefix = directory.endsWith(File.separator) ? directory : directory + File.separator;
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
 
     /**
-     * @return the dependencyProvider
+     * Check a single project. It may be called concurrently for different projects, so implementations must keep their
+     * state in local variables.
      */
-    protected DependencyProvider getDependencyProvider() {
-        return dependencyProvider;
+    public abstract void processProject(final MavenProject project, CheckContext checkContext, Document doc, final Map<String, List<Violation>> results)
+        throws Exception;
+
+    /**
+     * @return the metrics of this checker in the current run
+     */
+    protected CheckerMetrics getMetrics() {
+        return runMetrics.get(getClass());
     }
 
     /**
-     * @return the xPath
+     * @return the context
      */
-    protected XPath getxPath() {
-        return xPath;
+    protected Context getContext() {
+        return context;
+    }
+
+    /**
+     * @return the dependencyProvider
+     */
+    protected DependencyProvider getDependencyProvider() {
+        return dependencyProvider;
     }
 
     /**
-     * @return the log
+     * @return the pomCache
      */
-    protected Log getLog() {
-        return log;
+    protected PomCache getPomCache() {
+        return pomCache;
     }
 
     /**
-     * @return the mavenSession
+     * @return the xPath
      */
-    protected MavenSession getMavenSession() {
-        return mavenSession;
+    protected XPath getxPath() {
+        return xPath.get();
     }
 
 }
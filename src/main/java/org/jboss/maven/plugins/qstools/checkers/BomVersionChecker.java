@@ -19,66 +19,72 @@ package org.jboss.maven.plugins.qstools.checkers;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
-import org.codehaus.plexus.context.Context;
 import org.jboss.jdf.stacks.model.Bom;
-import org.jboss.jdf.stacks.model.Stacks;
+import org.jboss.maven.plugins.qstools.BomIndex;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
 import org.jboss.maven.plugins.qstools.maven.MavenDependency;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "bomVersionChecker")
-public class BomVersionChecker extends AbstractProjectChecker {
-
-    public static final String STACKS = "stacks";
+public class BomVersionChecker extends AbstractPomRuleChecker {
 
     @Requirement
-    private Context context;
+    private BomIndex bomIndex;
 
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/dependencyManagement/dependencies/dependency" };
+    }
 
-        NodeList dependencies = (NodeList) getxPath().evaluate("/project/dependencyManagement/dependencies/dependency", doc, XPathConstants.NODESET);
-        // Iterate over all Declared Managed Dependencies
-        for (int x = 0; x < dependencies.getLength(); x++) {
-            Node dependency = dependencies.item(x);
-            MavenDependency mavenDependency = getDependencyProvider().getDependencyFromNode(project, dependency);
-            // use stacks to find if the project is using a jdf bom
-            Bom bomUsed = null;
-            Stacks stacks = (Stacks) context.get(STACKS);
-            for (Bom bom : stacks.getAvailableBoms()) {
-                if (bom.getGroupId().equals(mavenDependency.getGroupId()) && bom.getArtifactId().equals(mavenDependency.getArtifactId())) {
-                    bomUsed = bom;
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) throws Exception {
+        return new PomElementHandler() {
+
+            // Iterate over all Declared Managed Dependencies
+            @Override
+            public void element(PomElement dependency) throws Exception {
+                MavenDependency mavenDependency = getDependencyProvider().getDependencyFromElement(project, dependency);
+                // use stacks to find if the project is using a jdf bom
+                Bom bomUsed = bomIndex.getBom(mavenDependency.getGroupId(), mavenDependency.getArtifactId());
+                int lineNumber = dependency.getLineNumber();
+                if (bomUsed == null // No JDF Bom used
+                    && !mavenDependency.getGroupId().startsWith("org.jboss")) { // Escape jboss boms
+                    // The text of the dependency is kept instead of the dependency itself
+                    addViolation(project.getFile(), results, lineNumber, "%s isn't a JBoss/JDF BOM", mavenDependency.toString());
+                } else if (bomUsed != null) {
+                    if (!mavenDependency.getInterpoledVersion().equals(bomUsed.getRecommendedVersion())) {
+                        String msg = "BOM %s isn't using the recommended version %s";
+                        addViolation(project.getFile(), results, lineNumber, msg, mavenDependency.toString(), bomUsed.getRecommendedVersion());
+                    }
                 }
             }
-            int lineNumber = getLineNumberFromNode(dependency);
-            if (bomUsed == null // No JDF Bom used
-                && !mavenDependency.getGroupId().startsWith("org.jboss")) { // Escape jboss boms
-                addViolation(project.getFile(), results, lineNumber, mavenDependency + " isn't a JBoss/JDF BOM");
-            } else if (bomUsed != null) {
-                if (!mavenDependency.getInterpoledVersion().equals(bomUsed.getRecommendedVersion())) {
-                    String violationMsg = String.format("BOM %s isn't using the recommended version %s", mavenDependency, bomUsed.getRecommendedVersion());
-                    addViolation(project.getFile(), results, lineNumber, violationMsg);
-                }
+
+            @Override
+            public void endDocument() throws Exception {
+                // The index may have been built for this project
+                getMetrics().addResolutions(bomIndex.getResolvedPoms());
             }
-        }
+        };
     }
 
     /*
@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.checkers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The state of a single {@link AbstractProjectChecker} check. The checkers are shared by all builds of a Maven process,
+ * so this state is handed down to the project checks instead of being kept in the checker.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class CheckContext {
+
+    private final MavenSession mavenSession;
+
+    private final Log log;
+
+    /**
+     * The reactor projects by groupId:artifactId:version, to find out which parents are part of the reactor
+     */
+    private final Map<String, MavenProject> reactorProjectsById = new HashMap<String, MavenProject>();
+
+    public CheckContext(MavenSession mavenSession, List<MavenProject> reactorProjects, Log log) {
+        this.mavenSession = mavenSession;
+        this.log = log;
+        for (MavenProject reactorProject : reactorProjects) {
+            reactorProjectsById.put(reactorProject.getGroupId() + ':' + reactorProject.getArtifactId() + ':' + reactorProject.getVersion(), reactorProject);
+        }
+    }
+
+    /**
+     * @return the mavenSession
+     */
+    public MavenSession getMavenSession() {
+        return mavenSession;
+    }
+
+    /**
+     * @return the log
+     */
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * @return the reactor project with the given coordinates or null if it isn't part of the reactor
+     */
+    public MavenProject getReactorProject(String groupId, String artifactId, String version) {
+        return reactorProjectsById.get(groupId + ':' + artifactId + ':' + version);
+    }
+
+}
@@ -0,0 +1,326 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the 
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,  
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.checkers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.checkstyle.CheckstyleExecutor;
+import org.apache.maven.plugin.checkstyle.CheckstyleExecutorRequest;
+import org.apache.maven.plugin.checkstyle.CheckstyleResults;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.jboss.maven.plugins.qstools.IncrementalCache;
+import org.jboss.maven.plugins.qstools.RunMetrics;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.jboss.maven.plugins.qstools.ViolationList;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+
+/**
+ * A Checkstyle execution for one or more {@link AbstractCheckstyleChecker}. With more than one checker, the events are
+ * routed by module id, so the configuration modules must have the checker id (see {@link CombinedCheckstyleRun}).
+ *
+ * On incremental checks only the files that changed since the cached results are given to Checkstyle, when there are
+ * few of them. Otherwise all files are checked again.
+ *
+ * @author Rafael Benevides
+ *
+ */
+class CheckstyleExecution {
+
+    /**
+     * Checkstyle executions share the resource locator and global Checkstyle state, so only one can run at a time
+     */
+    private static final Object CHECKSTYLE_LOCK = new Object();
+
+    /**
+     * The changed files are named one by one and the scanner matches every file against every name, so above this many
+     * changed files checking all of them is cheaper
+     */
+    private static final int MAX_NAMED_FILES = 100;
+
+    private final CheckstyleExecutor checkstyleExecutor;
+
+    private final IncrementalCache incrementalCache;
+
+    private final RunMetrics runMetrics;
+
+    private final Map<String, AbstractCheckstyleChecker> checkers;
+
+    /**
+     * @param checkers the checkers by id
+     */
+    CheckstyleExecution(CheckstyleExecutor checkstyleExecutor, IncrementalCache incrementalCache, RunMetrics runMetrics, Map<String, AbstractCheckstyleChecker> checkers) {
+        this.checkstyleExecutor = checkstyleExecutor;
+        this.incrementalCache = incrementalCache;
+        this.runMetrics = runMetrics;
+        this.checkers = checkers;
+    }
+
+    /**
+     * @return the violations of each checker id, by file
+     */
+    Map<String, Map<String, List<Violation>>> execute(MavenProject project, List<MavenProject> reactorProjects, Log log, String configLocation, String excludes)
+        throws Exception {
+        Map<String, Map<String, List<Violation>>> result = new HashMap<String, Map<String, List<Violation>>>();
+        for (String id : checkers.keySet()) {
+            result.put(id, new TreeMap<String, List<Violation>>());
+        }
+        Set<String> includes = new LinkedHashSet<String>();
+        for (AbstractCheckstyleChecker checker : checkers.values()) {
+            includes.addAll(splitPatterns(checker.getIncludes()));
+        }
+        String includesExpression = joinPatterns(includes);
+
+        Map<String, String> changedFiles = null;
+        if (incrementalCache.isEnabled()) {
+            changedFiles = new TreeMap<String, String>();
+            List<String> files = listFiles(project.getBasedir(), includesExpression, excludes);
+            for (String file : files) {
+                String hash = incrementalCache.hash(Collections.singletonList(new File(project.getBasedir(), file)));
+                if (!addCachedViolations(file, hash, result)) {
+                    changedFiles.put(file, hash);
+                }
+            }
+            if (changedFiles.isEmpty()) {
+                return result;
+            }
+            if (canNameFiles(changedFiles.keySet(), files.size())) {
+                // Only the changed files are checked, named one by one
+                includesExpression = joinPatterns(changedFiles.keySet());
+            }
+        }
+
+        CheckstyleExecutorRequest executorRequest = new CheckstyleExecutorRequest();
+        executorRequest
+            .setReactorProjects(reactorProjects)
+            .setSourceDirectory(project.getBasedir())
+            .setTestSourceDirectory(project.getBasedir())
+            .setFailsOnError(false)
+            .setProject(project)
+            .setConfigLocation(configLocation)
+            .setLog(log)
+            .setEncoding("UTF-8")
+            .setHeaderLocation("header.txt")
+            .setIncludes(includesExpression)
+            .setExcludes(excludes)
+            .setListener(new FileMetricsListener(project.getBasedir()));
+        CheckstyleResults checkstyleResults;
+        synchronized (CHECKSTYLE_LOCK) {
+            checkstyleResults = checkstyleExecutor.executeCheckstyle(executorRequest);
+        }
+        Map<String, Map<String, List<Violation>>> checkedViolations = routeEvents(checkstyleResults.getFiles(), log);
+        for (String id : checkedViolations.keySet()) {
+            result.get(id).putAll(checkedViolations.get(id));
+        }
+
+        if (changedFiles != null) {
+            for (String file : changedFiles.keySet()) {
+                for (String id : checkers.keySet()) {
+                    AbstractCheckstyleChecker checker = checkers.get(id);
+                    if (isIncluded(file, checker.getIncludes())) {
+                        Map<String, List<Violation>> fileViolations = new TreeMap<String, List<Violation>>();
+                        if (checkedViolations.get(id).containsKey(file)) {
+                            fileViolations.put(file, checkedViolations.get(id).get(file));
+                        }
+                        incrementalCache.put(checker.getClass(), file, changedFiles.get(file), fileViolations);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the cached violations of the file for all checkers that include it
+     *
+     * @return false if any of these checkers doesn't have the file cached with the same hash
+     */
+    private boolean addCachedViolations(String file, String hash, Map<String, Map<String, List<Violation>>> result) {
+        Map<String, Map<String, List<Violation>>> cached = new HashMap<String, Map<String, List<Violation>>>();
+        for (String id : checkers.keySet()) {
+            AbstractCheckstyleChecker checker = checkers.get(id);
+            if (isIncluded(file, checker.getIncludes())) {
+                Map<String, List<Violation>> violations = incrementalCache.get(checker.getClass(), file, hash);
+                if (violations == null) {
+                    return false;
+                }
+                cached.put(id, violations);
+            }
+        }
+        for (String id : cached.keySet()) {
+            result.get(id).putAll(cached.get(id));
+        }
+        return true;
+    }
+
+    /**
+     * Convert each event to a violation of the checker that produced it
+     */
+    private Map<String, Map<String, List<Violation>>> routeEvents(Map<String, List<AuditEvent>> files, Log log) {
+        Map<String, Map<String, List<Violation>>> result = new HashMap<String, Map<String, List<Violation>>>();
+        for (String id : checkers.keySet()) {
+            result.put(id, new TreeMap<String, List<Violation>>());
+        }
+        // Checkstyle formats each event message: keep a single copy of the messages repeated across files
+        Map<String, String> messages = new HashMap<String, String>();
+        for (String file : files.keySet()) {
+            for (AuditEvent event : files.get(file)) {
+                String id = checkers.size() == 1 ? checkers.keySet().iterator().next() : event.getModuleId();
+                AbstractCheckstyleChecker checker = checkers.get(id);
+                if (checker == null) {
+                    log.warn("Checkstyle event without a checker: " + file + ":" + event.getLine() + " " + event.getMessage());
+                } else if (checkers.size() == 1 || isIncluded(file, checker.getIncludes())) {
+                    Map<String, List<Violation>> checkerFiles = result.get(id);
+                    ViolationList violations = (ViolationList) checkerFiles.get(file);
+                    if (violations == null) {
+                        violations = new ViolationList(checker.getClass());
+                        checkerFiles.put(file, violations);
+                    }
+                    String message = event.getMessage();
+                    String sharedMessage = messages.get(message);
+                    if (sharedMessage == null) {
+                        messages.put(message, message);
+                        sharedMessage = message;
+                    }
+                    // Add each checktyle AuditEvent as a new Violation
+                    violations.add(event.getLine(), sharedMessage);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the files Checkstyle would check, relative to the directory and separated by /
+     */
+    private List<String> listFiles(File directory, String includes, String excludes) throws Exception {
+        List<String> files = new ArrayList<String>();
+        for (Object file : FileUtils.getFileNames(directory, includes, excludes, false)) {
+            files.add(((String) file).replace(File.separatorChar, '/'));
+        }
+        return files;
+    }
+
+    /**
+     * @param file a file path separated by /
+     */
+    static boolean isIncluded(String file, String includes) {
+        String path = file.replace('/', File.separatorChar);
+        for (String include : splitPatterns(includes)) {
+            if (SelectorUtils.matchPath(include.replace('/', File.separatorChar), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<String> splitPatterns(String patterns) {
+        List<String> result = new ArrayList<String>();
+        for (String pattern : patterns.split(",")) {
+            if (pattern.trim().length() > 0) {
+                result.add(pattern.trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the changed files are few compared to all files and their names can be used as include patterns
+     */
+    private static boolean canNameFiles(Set<String> changedFiles, int allFiles) {
+        if (changedFiles.size() > MAX_NAMED_FILES || changedFiles.size() * 2 > allFiles) {
+            return false;
+        }
+        for (String file : changedFiles) {
+            // Patterns are separated by commas and can't escape the wildcards
+            if (file.indexOf(',') >= 0 || file.indexOf('*') >= 0 || file.indexOf('?') >= 0 || !file.equals(file.trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String joinPatterns(Set<String> patterns) {
+        StringBuilder sb = new StringBuilder();
+        for (String pattern : patterns) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(pattern);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Measures each file checked by Checkstyle. In a combined execution the file time is counted for every checker that
+     * includes the file
+     */
+    private class FileMetricsListener implements AuditListener {
+
+        private final File basedir;
+
+        private long fileStart;
+
+        FileMetricsListener(File basedir) {
+            this.basedir = basedir;
+        }
+
+        @Override
+        public void fileStarted(AuditEvent event) {
+            fileStart = System.nanoTime();
+        }
+
+        @Override
+        public void fileFinished(AuditEvent event) {
+            long nanos = System.nanoTime() - fileStart;
+            File file = new File(event.getFileName());
+            String path = AbstractProjectChecker.getRelativePath(file, basedir.getAbsolutePath()).replace(File.separatorChar, '/');
+            for (AbstractCheckstyleChecker checker : checkers.values()) {
+                if (checkers.size() == 1 || isIncluded(path, checker.getIncludes())) {
+                    runMetrics.get(checker.getClass()).addFile(path, nanos, file.length());
+                }
+            }
+        }
+
+        @Override
+        public void auditStarted(AuditEvent event) {
+        }
+
+        @Override
+        public void auditFinished(AuditEvent event) {
+        }
+
+        @Override
+        public void addError(AuditEvent event) {
+        }
+
+        @Override
+        public void addException(AuditEvent event, Throwable throwable) {
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the 
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,  
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.checkers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.maven.plugin.checkstyle.CheckstyleExecutor;
+import org.apache.maven.plugin.checkstyle.DefaultCheckstyleExecutor;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.jboss.maven.plugins.qstools.BoundedCache;
+import org.jboss.maven.plugins.qstools.IncrementalCache;
+import org.jboss.maven.plugins.qstools.RunMetrics;
+import org.jboss.maven.plugins.qstools.Violation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Runs the Checkstyle configurations of all registered {@link AbstractCheckstyleChecker} in a single Checkstyle
+ * execution, so the project files are walked, read and decoded only once.
+ *
+ * The configurations are merged into one file and each module receives the id of the checker it came from. Each
+ * Checkstyle event is then routed back to its checker by module id and filtered by the checker includes.
+ *
+ * The run state is cleared by {@link org.jboss.maven.plugins.qstools.RunScope}. The combined configurations are built
+ * from the plugin resources, so they are kept for the next runs of the same Maven process until {@link #invalidate()}
+ * is called.
+ *
+ * @author Rafael Benevides
+ *
+ */
+@Component(role = CombinedCheckstyleRun.class)
+public class CombinedCheckstyleRun {
+
+    private static final String DOCTYPE_PUBLIC = "-//Puppy Crawl//DTD Check Configuration 1.2//EN";
+
+    private static final String DOCTYPE_SYSTEM = "http://www.puppycrawl.com/dtds/configuration_1_2.dtd";
+
+    private static final String COMBINED_CONFIG = "qstools-checkstyle.xml";
+
+    /**
+     * How many combined configurations are kept for the next runs
+     */
+    private static final int MAX_COMBINED_CONFIGS = 8;
+
+    @Requirement(role = CheckstyleExecutor.class)
+    private DefaultCheckstyleExecutor checkstyleExecutor;
+
+    @Requirement
+    private IncrementalCache incrementalCache;
+
+    @Requirement
+    private RunMetrics runMetrics;
+
+    private final Map<String, AbstractCheckstyleChecker> checkers = new TreeMap<String, AbstractCheckstyleChecker>();
+
+    /**
+     * Violations of the last run: checker id -> file -> violations
+     */
+    private Map<String, Map<String, List<Violation>>> checkersViolations;
+
+    /**
+     * The combined configuration of each set of checkers, shared by the runs
+     */
+    private final BoundedCache<String, byte[]> combinedConfigs = new BoundedCache<String, byte[]>(MAX_COMBINED_CONFIGS);
+
+    /**
+     * Include the checker configuration in the combined run
+     */
+    public synchronized void register(AbstractCheckstyleChecker checker) {
+        checkers.put(getCheckerId(checker), checker);
+    }
+
+    /**
+     * @return true if the checker configuration is part of the combined run
+     */
+    public synchronized boolean isRegistered(AbstractCheckstyleChecker checker) {
+        return checkers.get(getCheckerId(checker)) == checker;
+    }
+
+    /**
+     * Run Checkstyle once for all registered checkers, if it wasn't run yet, and return the checker violations
+     *
+     * @return the violations of the given checker, by file
+     */
+    public synchronized Map<String, List<Violation>> getViolations(AbstractCheckstyleChecker checker, MavenProject project, List<MavenProject> reactorProjects,
+        Log log, String excludes) throws Exception {
+        if (checkersViolations == null) {
+            File config = writeCombinedConfig(new File(project.getBuild().getDirectory(), COMBINED_CONFIG));
+            CheckstyleExecution execution = new CheckstyleExecution(checkstyleExecutor, incrementalCache, runMetrics, checkers);
+            checkersViolations = execution.execute(project, reactorProjects, log, config.getAbsolutePath(), excludes);
+        }
+        return checkersViolations.get(getCheckerId(checker));
+    }
+
+    /**
+     * Discard the registered checkers and the last run violations. The combined configurations are kept
+     */
+    public synchronized void clear() {
+        checkers.clear();
+        checkersViolations = null;
+    }
+
+    /**
+     * Discard the combined configurations shared by the runs
+     */
+    public void invalidate() {
+        combinedConfigs.clear();
+    }
+
+    /**
+     * Write the combined configuration of the registered checkers, combining it only if it isn't cached
+     *
+     * @return the written file
+     */
+    private File writeCombinedConfig(File file) throws Exception {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, AbstractCheckstyleChecker> entry : checkers.entrySet()) {
+            key.append(entry.getKey()).append('=').append(entry.getValue().getCheckstyleConfig()).append(',');
+        }
+        byte[] config = combinedConfigs.get(key.toString());
+        if (config == null) {
+            config = combineConfigs();
+            combinedConfigs.put(key.toString(), config);
+        }
+        file.getParentFile().mkdirs();
+        OutputStream os = new FileOutputStream(file);
+        try {
+            os.write(config);
+        } finally {
+            os.close();
+        }
+        return file;
+    }
+
+    /**
+     * Merge the modules of all registered configurations under a single Checker module
+     *
+     * @return the combined configuration
+     */
+    private byte[] combineConfigs() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        // Don't download the Checkstyle DTD
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document combined = builder.newDocument();
+        Element root = combined.createElement("module");
+        root.setAttribute("name", "Checker");
+        combined.appendChild(root);
+        Set<String> rootProperties = new LinkedHashSet<String>();
+        for (Map.Entry<String, AbstractCheckstyleChecker> entry : checkers.entrySet()) {
+            InputStream is = getClass().getResourceAsStream("/" + entry.getValue().getCheckstyleConfig());
+            Document config;
+            try {
+                config = builder.parse(is);
+            } finally {
+                is.close();
+            }
+            for (Node node = config.getDocumentElement().getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (!(node instanceof Element)) {
+                    continue;
+                }
+                Element element = (Element) node;
+                // Checker properties are kept once
+                if ("property".equals(element.getNodeName()) && !rootProperties.add(element.getAttribute("name"))) {
+                    continue;
+                }
+                Element imported = (Element) combined.importNode(element, true);
+                if ("module".equals(imported.getNodeName())) {
+                    setModuleId(combined, imported, entry.getKey());
+                }
+                root.appendChild(imported);
+            }
+        }
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, DOCTYPE_PUBLIC);
+        transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, DOCTYPE_SYSTEM);
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(combined), new StreamResult(os));
+        return os.toByteArray();
+    }
+
+    /**
+     * Set the id of the module and of its nested modules
+     */
+    private void setModuleId(Document combined, Element module, String id) {
+        Element property = combined.createElement("property");
+        property.setAttribute("name", "id");
+        property.setAttribute("value", id);
+        module.insertBefore(property, module.getFirstChild());
+        for (Node node = module.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if ("module".equals(node.getNodeName())) {
+                setModuleId(combined, (Element) node, id);
+            }
+        }
+    }
+
+    private String getCheckerId(AbstractCheckstyleChecker checker) {
+        return checker.getClass().getSimpleName();
+    }
+
+}
@@ -21,22 +21,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "duplicateDependencyChecker")
-public class DuplicateDependencyChecker extends AbstractProjectChecker {
+public class DuplicateDependencyChecker extends AbstractPomRuleChecker {
+
+    private static final String MANAGED_DEPENDENCY_PATH = "/project/dependencyManagement/dependencies/dependency/artifactId";
+
+    private static final String DEPENDENCY_PATH = "/project/dependencies/dependency/artifactId";
 
     /*
      * (non-Javadoc)
@@ -51,36 +52,43 @@ public class DuplicateDependencyChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        // Check Managed Dependencies
-        Set<String> declaredManagedDependencies = new HashSet<String>();
-        NodeList managedDependency = (NodeList) getxPath().evaluate("/project/dependencyManagement/dependencies/dependency/artifactId", doc, XPathConstants.NODESET);
-        for (int x = 0; x < managedDependency.getLength(); x++) {
-            Node artifact = managedDependency.item(x);
-            String artifactName = artifact.getTextContent();
-            int lineNumber = getLineNumberFromNode(artifact);
-            if (!declaredManagedDependencies.add(artifactName)) { // return false if already exists
-                String msg = "Managed Dependency [%s] is declared more than once";
-                addViolation(project.getFile(), results, lineNumber, String.format(msg, artifactName));
-            }
-        }
-        // Check Dependencies
-        Set<String> declaredDependencies = new HashSet<String>();
-        NodeList dependencies = (NodeList) getxPath().evaluate("/project/dependencies/dependency/artifactId", doc, XPathConstants.NODESET);
-        for (int x = 0; x < dependencies.getLength(); x++) {
-            Node artifact = dependencies.item(x);
-            String artifactName = artifact.getTextContent();
-            int lineNumber = getLineNumberFromNode(artifact);
-            if (!declaredDependencies.add(artifactName)) { // return false if already exists
-                String msg = "Dependency [%s] is declared more than once";
-                addViolation(project.getFile(), results, lineNumber, String.format(msg, artifactName));
-            }
-        }
+    public String[] getSubscribedPaths() {
+        return new String[] { MANAGED_DEPENDENCY_PATH, DEPENDENCY_PATH };
+    }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            private Set<String> declaredManagedDependencies = new HashSet<String>();
+
+            private Set<String> declaredDependencies = new HashSet<String>();
+
+            @Override
+            public void element(PomElement artifact) {
+                String artifactName = artifact.getText();
+                int lineNumber = artifact.getLineNumber();
+                // Check Managed Dependencies
+                if (MANAGED_DEPENDENCY_PATH.equals(artifact.getPath()) && !declaredManagedDependencies.add(artifactName)) { // return false if already exists
+                    String msg = "Managed Dependency [%s] is declared more than once";
+                    addViolation(project.getFile(), results, lineNumber, msg, artifactName);
+                }
+                // Check Dependencies
+                if (DEPENDENCY_PATH.equals(artifact.getPath()) && !declaredDependencies.add(artifactName)) { // return false if already exists
+                    String msg = "Dependency [%s] is declared more than once";
+                    addViolation(project.getFile(), results, lineNumber, msg, artifactName);
+                }
+            }
+        };
     }
 
 }
@@ -21,22 +21,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "duplicatePropertiesChecker")
-public class DuplicatePropertiesChecker extends AbstractProjectChecker {
+public class DuplicatePropertiesChecker extends AbstractPomRuleChecker {
 
     /*
      * (non-Javadoc)
@@ -51,22 +48,35 @@ public class DuplicatePropertiesChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/properties/*" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        NodeList properties = (NodeList) getxPath().evaluate("/project/properties/*", doc, XPathConstants.NODESET);
-        Set<String> declaredProperties = new HashSet<String>();
-        for (int x = 0; x < properties.getLength(); x++) {
-            Node property = properties.item(x);
-            String propertyName = property.getNodeName();
-            int lineNumber = getLineNumberFromNode(property);
-            if (!declaredProperties.add(propertyName)) { // return false if already exists
-                String msg = "Property [%s] is declared more than once";
-                addViolation(project.getFile(), results, lineNumber, String.format(msg, propertyName));
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            private Set<String> declaredProperties = new HashSet<String>();
+
+            @Override
+            public void element(PomElement property) {
+                String propertyName = property.getName();
+                int lineNumber = property.getLineNumber();
+                if (!declaredProperties.add(propertyName)) { // return false if already exists
+                    String msg = "Property [%s] is declared more than once";
+                    addViolation(project.getFile(), results, lineNumber, msg, propertyName);
+                }
             }
-        }
+        };
     }
 
 }
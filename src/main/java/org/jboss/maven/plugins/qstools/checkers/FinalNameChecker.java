@@ -19,25 +19,36 @@ package org.jboss.maven.plugins.qstools.checkers;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 import edu.emory.mathcs.backport.java.util.Arrays;
 
 /**
+ * Only the build of the project and of its profiles is checked: plugins declared in the reporting section and finalName
+ * elements inside a plugin configuration are ignored. The first build finalName in the pom.xml is the one checked.
+ *
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "finalNameChecker")
-public class FinalNameChecker extends AbstractProjectChecker {
-    
+public class FinalNameChecker extends AbstractPomRuleChecker {
+
+    /**
+     * Absolute paths only, so the streaming pass can skip the plugins configuration and the other subtrees
+     */
+    private static final String[] SUBSCRIBED_PATHS = new String[] {
+        "/project/build/finalName",
+        "/project/build/plugins/plugin/artifactId",
+        "/project/build/pluginManagement/plugins/plugin/artifactId",
+        "/project/profiles/profile/build/finalName",
+        "/project/profiles/profile/build/plugins/plugin/artifactId",
+        "/project/profiles/profile/build/pluginManagement/plugins/plugin/artifactId" };
+
     private String[] projectPlugins = new String[]{"maven-ear-plugin", "maven-war-plugin", "maven-ejb-plugin", "maven-jar-plugin", "maven-rar-plugin"};
 
     /*
@@ -53,24 +64,52 @@ public class FinalNameChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return SUBSCRIBED_PATHS;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
      */
     @Override
-    @SuppressWarnings("unchecked")
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        NodeList plugins = (NodeList) getxPath().evaluate("//plugin/artifactId", doc, XPathConstants.NODESET);
-        List<String> pluginsList = Arrays.asList(projectPlugins);
-        for (int x = 0; x < plugins.getLength(); x++) {
-            Node pluginArtifact = plugins.item(x);
-            if (pluginsList.contains(pluginArtifact.getTextContent())){
-                Node finalNameNode = (Node) getxPath().evaluate("//finalName", doc, XPathConstants.NODE);
-                if (finalNameNode == null || !finalNameNode.getTextContent().equals("${project.artifactId}")) {
-                    int lineNumber = finalNameNode == null ? 0 : getLineNumberFromNode(finalNameNode);
-                    addViolation(project.getFile(), results, lineNumber, "File doesn't contain <finalName>${project.artifactId}</finalName>");
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            private int packagingPlugins = 0;
+
+            private PomElement finalName;
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void element(PomElement element) {
+                if ("finalName".equals(element.getName())) {
+                    // Only the first finalName is considered
+                    if (finalName == null) {
+                        finalName = element;
+                    }
+                } else if (Arrays.asList(projectPlugins).contains(element.getText())) {
+                    packagingPlugins++;
+                }
+            }
+
+            /*
+             * The finalName may be declared after the plugins, so the violations are only known at the end
+             */
+            @Override
+            public void endDocument() {
+                for (int x = 0; x < packagingPlugins; x++) {
+                    if (finalName == null || !finalName.getText().equals("${project.artifactId}")) {
+                        int lineNumber = finalName == null ? 0 : finalName.getLineNumber();
+                        addViolation(project.getFile(), results, lineNumber, "File doesn't contain <finalName>${project.artifactId}</finalName>");
+                    }
                 }
             }
-        }
+        };
     }
 }
@@ -19,31 +19,23 @@ package org.jboss.maven.plugins.qstools.checkers;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
-import org.codehaus.plexus.component.annotations.Requirement;
-import org.codehaus.plexus.context.Context;
+import org.codehaus.plexus.context.ContextException;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "GroupIdChecker")
-public class GroupIdChecker extends AbstractProjectChecker {
+public class GroupIdChecker extends AbstractPomRuleChecker {
 
     public static final String GROUPID = "qstools.groupId";
 
-    @Requirement
-    private Context context;
-
-    private String groupId;
-
     /*
      * (non-Javadoc)
      * 
@@ -51,26 +43,42 @@ public class GroupIdChecker extends AbstractProjectChecker {
      */
     @Override
     public String getCheckerDescription() {
-        return "Check if the groupdId is '" + groupId + "'";
+        try {
+            return "Check if the groupdId is '" + getContext().get(GROUPID) + "'";
+        } catch (ContextException e) {
+            return "Check if the groupdId is the one defined by " + GROUPID;
+        }
     }
 
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        groupId = (String) context.get(GROUPID);
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/groupId" };
+    }
 
-        Node node = (Node) getxPath().evaluate("/project/groupId", doc, XPathConstants.NODE);
-        if (node != null && !project.getGroupId().equals(groupId)) {
-            int lineNumber = getLineNumberFromNode(node);
-            addViolation(project.getFile(), results, lineNumber, "The project doesn't use groupId '" + groupId + "'");
-        }
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) throws Exception {
+        final String groupId = (String) getContext().get(GROUPID);
+        return new PomElementHandler() {
 
+            @Override
+            public void element(PomElement element) {
+                if (!project.getGroupId().equals(groupId)) {
+                    int lineNumber = element.getLineNumber();
+                    addViolation(project.getFile(), results, lineNumber, "The project doesn't use groupId '%s'", groupId);
+                }
+            }
+        };
     }
 
 }
@@ -19,21 +19,19 @@ package org.jboss.maven.plugins.qstools.checkers;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  *
  */
 @Component(role = QSChecker.class, hint = "LicenseChecker")
-public class LicenseChecker extends AbstractProjectChecker {
+public class LicenseChecker extends AbstractPomRuleChecker {
 
     /* (non-Javadoc)
      * @see org.jboss.maven.plugins.qstools.QSChecker#getCheckerDescription()
@@ -44,15 +42,38 @@ public class LicenseChecker extends AbstractProjectChecker {
     }
 
     /* (non-Javadoc)
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject, org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/licenses/license/url" };
+    }
+
+    /* (non-Javadoc)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        Node licenseURL = (Node) getxPath().evaluate("/project/licenses/license/url", doc, XPathConstants.NODE);
-        if (licenseURL == null || !licenseURL.getTextContent().contains("apache")){ 
-            addViolation(project.getFile(), results, 0, "File doesn't the 'Apache License, Version 2.0' license");
-        }
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            private PomElement licenseURL;
+
+            @Override
+            public void element(PomElement element) {
+                // Only the first license is considered
+                if (licenseURL == null) {
+                    licenseURL = element;
+                }
+            }
 
+            @Override
+            public void endDocument() {
+                if (licenseURL == null || !licenseURL.getText().contains("apache")) {
+                    addViolation(project.getFile(), results, 0, "File doesn't the 'Apache License, Version 2.0' license");
+                }
+            }
+        };
     }
 
 }
@@ -16,35 +16,29 @@
  */
 package org.jboss.maven.plugins.qstools.checkers;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.repository.ArtifactRepository;
-import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
-import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.repository.RepositorySystem;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.jboss.maven.plugins.qstools.CentralRepositoryLookup;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "mavenCentralRepositoryChecker")
-public class MavenCentralRepositoryChecker extends AbstractProjectChecker {
+public class MavenCentralRepositoryChecker extends AbstractPomRuleChecker {
 
     @Requirement
-    private RepositorySystem repositorySystem;
+    private CentralRepositoryLookup centralRepositoryLookup;
 
     /*
      * (non-Javadoc)
@@ -59,28 +53,62 @@ public class MavenCentralRepositoryChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#isIncremental()
+     */
+    @Override
+    protected boolean isIncremental() {
+        // The lookups expire after qstools.central.ttl, even if the pom.xml didn't change. They are stored apart, so
+        // checking the project again is cheap
+        return false;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/dependencies/dependency/artifactId", "/project/profiles/profile/dependencies/dependency/artifactId" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        for (Dependency dependency : project.getDependencies()) {
-            Artifact dependencyArtifact = repositorySystem.createProjectArtifact(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
-            ArtifactResolutionRequest arr = new ArtifactResolutionRequest();
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) throws Exception {
+        return new PomElementHandler() {
 
-            List<ArtifactRepository> remoteRepositories = new ArrayList<ArtifactRepository>();
-            remoteRepositories.add(repositorySystem.createDefaultRemoteRepository());
+            // The first declaration line of each artifactId
+            private final Map<String, Integer> lineNumbers = new HashMap<String, Integer>();
 
-            arr.setArtifact(dependencyArtifact).setRemoteRepositories(remoteRepositories).setLocalRepository(getMavenSession().getLocalRepository());
-            ArtifactResolutionResult result = repositorySystem.resolve(arr);
-            Node dependencyNode = (Node) getxPath().evaluate("//artifactId[text() ='" + dependency.getArtifactId() + "']", doc, XPathConstants.NODE);
-            int lineNumber = getLineNumberFromNode(dependencyNode);
-            if (!result.isSuccess()){
-                addViolation(project.getFile(), results, lineNumber, dependency + " doesn't comes from Maven Central Repository");
+            @Override
+            public void element(PomElement artifactId) throws Exception {
+                if (!lineNumbers.containsKey(artifactId.getText())) {
+                    lineNumbers.put(artifactId.getText(), artifactId.getLineNumber());
+                }
             }
-        }
-    }
 
+            @Override
+            public void endDocument() throws Exception {
+                List<Dependency> dependencies = project.getDependencies();
+                // All dependencies are looked up at once. The artifacts shared with other modules are looked up only once
+                List<Boolean> found = centralRepositoryLookup.lookup(dependencies);
+                getMetrics().addResolutions(centralRepositoryLookup.getResolvedArtifacts(dependencies));
+                for (int i = 0; i < dependencies.size(); i++) {
+                    Dependency dependency = dependencies.get(i);
+                    // Inherited dependencies aren't declared in this pom.xml
+                    Integer lineNumber = lineNumbers.get(dependency.getArtifactId());
+                    if (!found.get(i)) {
+                        addViolation(project.getFile(), results, lineNumber == null ? 0 : lineNumber,
+                            "%s doesn't comes from Maven Central Repository", dependency.toString());
+                    }
+                }
+            }
+        };
+    }
 
 }
@@ -26,14 +26,14 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "moduleDefinedChecker")
-public class ModuleDefinedChecker extends AbstractProjectChecker {
+public class ModuleDefinedChecker extends AbstractPomRuleChecker {
 
     private static final String[] IGNORE_MODULES = new String[] { "dist", "template" };
 
@@ -61,26 +61,62 @@ public class ModuleDefinedChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#getInputFiles(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        File rootDir = project.getBasedir();
-        List<String> submodules = new ArrayList<String>();
-        for (File f : rootDir.listFiles()) {
+    protected List<File> getInputFiles(MavenProject project, CheckContext checkContext) {
+        // Adding or removing a project subdirectory changes the files list
+        List<File> files = super.getInputFiles(project, checkContext);
+        File[] subdirs = project.getBasedir().listFiles();
+        Arrays.sort(subdirs);
+        for (File f : subdirs) {
             if (f.isDirectory() && isProjectSubdir(f)) {
-                submodules.add(f.getName());
+                files.add(new File(f, "pom.xml"));
             }
         }
-        submodules.removeAll(Arrays.asList(IGNORE_MODULES));
-        for (String dir : submodules) {
-            if (!project.getModules().contains(dir)) {
-                String msg = "The following dir [%s] is not listed as one of project submodules";
-                addViolation(project.getFile(), results, 0, String.format(msg, dir));
+        return files;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return new String[0];
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            // The modules are read from the project model, so no pom.xml element is needed
+            @Override
+            public void endDocument() {
+                File rootDir = project.getBasedir();
+                List<String> submodules = new ArrayList<String>();
+                for (File f : rootDir.listFiles()) {
+                    if (f.isDirectory() && isProjectSubdir(f)) {
+                        submodules.add(f.getName());
+                    }
+                }
+                submodules.removeAll(Arrays.asList(IGNORE_MODULES));
+                for (String dir : submodules) {
+                    if (!project.getModules().contains(dir)) {
+                        String msg = "The following dir [%s] is not listed as one of project submodules";
+                        addViolation(project.getFile(), results, 0, msg, dir);
+                    }
+                }
             }
-        }
+        };
     }
 
 }
@@ -17,28 +17,29 @@
 package org.jboss.maven.plugins.qstools.checkers;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "pomElementOrderChecker")
-public class PomElementOrderChecker extends AbstractProjectChecker {
+public class PomElementOrderChecker extends AbstractPomRuleChecker {
 
     private static final String[] pomElements = new String[] { "parent", "modules", "properties", "dependencyManagement", "dependencies", "build", "profiles" };
 
+    private static final String POM_ELEMENTS_ORDER = Arrays.toString(pomElements);
+
     /*
      * (non-Javadoc)
      * 
@@ -52,33 +53,59 @@ public class PomElementOrderChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        String[] paths = new String[pomElements.length];
+        for (int x = 0; x < pomElements.length; x++) {
+            paths[x] = "/project/" + pomElements[x];
+        }
+        return paths;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        Map<String, Integer> elementsFound = new LinkedHashMap<String, Integer>();
-        // Find all elements position
-        for (String element : pomElements) {
-            Node elementNode = (Node) getxPath().evaluate("/project/" + element, doc, XPathConstants.NODE);
-            if (elementNode != null) {
-                int lineNumber = getLineNumberFromNode(elementNode);
-                elementsFound.put(element, lineNumber);
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            private Map<String, Integer> elementsLines = new HashMap<String, Integer>();
+
+            // Find all elements position
+            @Override
+            public void element(PomElement element) {
+                if (!elementsLines.containsKey(element.getName())) {
+                    elementsLines.put(element.getName(), element.getLineNumber());
+                }
             }
 
-        }
-        // Compare found elements order
-        String previousElement = null;
-        for (String element : elementsFound.keySet()) {
-            int lineNumber = elementsFound.get(element);
-            if (previousElement != null) {
-                int previousElementLineNumber = elementsFound.get(previousElement);
-                if (lineNumber < previousElementLineNumber) {
-                    String msg = "Element [%s] is not in the correct order: " + Arrays.toString(pomElements) + ". It shoud come after [%s] on line %s";
-                    addViolation(project.getFile(), results, lineNumber, String.format(msg, element, previousElement, previousElementLineNumber));
+            @Override
+            public void endDocument() {
+                Map<String, Integer> elementsFound = new LinkedHashMap<String, Integer>();
+                for (String element : pomElements) {
+                    if (elementsLines.containsKey(element)) {
+                        elementsFound.put(element, elementsLines.get(element));
+                    }
+                }
+                // Compare found elements order
+                String previousElement = null;
+                for (String element : elementsFound.keySet()) {
+                    int lineNumber = elementsFound.get(element);
+                    if (previousElement != null) {
+                        int previousElementLineNumber = elementsFound.get(previousElement);
+                        if (lineNumber < previousElementLineNumber) {
+                            String msg = "Element [%s] is not in the correct order: %s. It shoud come after [%s] on line %s";
+                            addViolation(project.getFile(), results, lineNumber, msg, element, POM_ELEMENTS_ORDER, previousElement, previousElementLineNumber);
+                        }
+                    }
+                    previousElement = element;
                 }
             }
-            previousElement = element;
-        }
+        };
     }
 }
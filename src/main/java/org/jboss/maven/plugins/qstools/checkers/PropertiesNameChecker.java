@@ -16,29 +16,30 @@
  */
 package org.jboss.maven.plugins.qstools.checkers;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-import javax.xml.xpath.XPathConstants;
-
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
 import org.jboss.maven.plugins.qstools.maven.MavenDependency;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "propertiesNameChecker")
-public class PropertiesNameChecker extends AbstractProjectChecker {
+public class PropertiesNameChecker extends AbstractPomRuleChecker {
 
-    private static Properties recommendedPropertiesNames;
+    /**
+     * Read from the plugin resources, so it is shared by all runs of this checker instance
+     */
+    private Properties recommendedPropertiesNames;
 
     /*
      * (non-Javadoc)
@@ -50,35 +51,56 @@ public class PropertiesNameChecker extends AbstractProjectChecker {
         return "Checks if POM properties are using standard names";
     }
 
+    /**
+     * Projects are checked concurrently, so only the first one loads the properties file
+     */
+    private synchronized Properties getRecommendedPropertiesNames() throws IOException {
+        if (recommendedPropertiesNames == null) {
+            Properties properties = new Properties();
+            properties.load(this.getClass().getResourceAsStream("/properties_names.properties"));
+            recommendedPropertiesNames = properties;
+        }
+        return recommendedPropertiesNames;
+    }
+
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        if (recommendedPropertiesNames == null) {
-            recommendedPropertiesNames = new Properties();
-            recommendedPropertiesNames.load(this.getClass().getResourceAsStream("/properties_names.properties"));
-        }
-        NodeList dependencies = (NodeList) getxPath().evaluate("/project/dependencies/dependency", doc, XPathConstants.NODESET);
-        // Iterate over all Declared Dependencies
-        for (int x = 0; x < dependencies.getLength(); x++) {
-            Node dependency = dependencies.item(x);
-            MavenDependency mavenDependency = getDependencyProvider().getDependencyFromNode(project, dependency);
-            String groupId = mavenDependency.getGroupId();
-            String artifactId = mavenDependency.getArtifactId();
-            String version = mavenDependency.getDeclaredVersion() == null ? null : mavenDependency.getDeclaredVersion().replaceAll("[${}]", "");
+    public String[] getSubscribedPaths() {
+        return new String[] { "/project/dependencies/dependency" };
+    }
 
-            if (groupId != null && version != null// If it has a groupId and a version
-                    && recommendedPropertiesNames.containsKey(groupId) // that we manage
-                    && !recommendedPropertiesNames.get(groupId).equals(version)) { // and it has a different value
-                int lineNumber = getLineNumberFromNode(dependency);
-                String recommendedName = recommendedPropertiesNames.getProperty(groupId);
-                String msg = "Version for [%s:%s:%s] isn't using the recommended property name: %s";
-                addViolation(project.getFile(), results, lineNumber, String.format(msg, groupId, artifactId, mavenDependency.getDeclaredVersion(), recommendedName));
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) throws Exception {
+        final Properties recommendedPropertiesNames = getRecommendedPropertiesNames();
+        return new PomElementHandler() {
+
+            // Iterate over all Declared Dependencies
+            @Override
+            public void element(PomElement dependency) throws Exception {
+                MavenDependency mavenDependency = getDependencyProvider().getDependencyFromElement(project, dependency);
+                String groupId = mavenDependency.getGroupId();
+                String artifactId = mavenDependency.getArtifactId();
+                String version = mavenDependency.getDeclaredVersion() == null ? null : mavenDependency.getDeclaredVersion().replaceAll("[${}]", "");
+
+                if (groupId != null && version != null// If it has a groupId and a version
+                        && recommendedPropertiesNames.containsKey(groupId) // that we manage
+                        && !recommendedPropertiesNames.get(groupId).equals(version)) { // and it has a different value
+                    int lineNumber = dependency.getLineNumber();
+                    String recommendedName = recommendedPropertiesNames.getProperty(groupId);
+                    String msg = "Version for [%s:%s:%s] isn't using the recommended property name: %s";
+                    addViolation(project.getFile(), results, lineNumber, msg, groupId, artifactId, mavenDependency.getDeclaredVersion(), recommendedName);
+                }
             }
-        }
+        };
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.checkers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Finds references to a set of properties in a text, in a single pass whatever the number of properties.
+ *
+ * Each property name is turned into one pattern per delimiter and all the patterns are matched together by an
+ * Aho-Corasick automaton. The delimiters use the syntax of the maven-resources-plugin: "${*}" matches ${name} and "@"
+ * matches @name@. References embedded in a longer text (Ex: ${version.a}-${version.b}) are found too.
+ *
+ * The text can be given in chunks: each call returns the state to give to the next call.
+ *
+ * @author Rafael Benevides
+ *
+ */
+class PropertyReferenceMatcher {
+
+    /**
+     * The state before reading any character
+     */
+    public static final int INITIAL_STATE = 0;
+
+    /**
+     * The characters leaving each state, sorted
+     */
+    private final char[][] labels;
+
+    /**
+     * The state reached by each character in {@link #labels}
+     */
+    private final int[][] targets;
+
+    /**
+     * The state to continue from when a character doesn't leave a state
+     */
+    private final int[] failures;
+
+    /**
+     * The properties referenced by the patterns ending at each state, or null if no pattern ends there
+     */
+    private final String[][] outputs;
+
+    public PropertyReferenceMatcher(Collection<String> propertyNames, String... delimiters) {
+        List<Map<Character, Integer>> transitions = new ArrayList<Map<Character, Integer>>();
+        List<List<String>> matches = new ArrayList<List<String>>();
+        transitions.add(new TreeMap<Character, Integer>());
+        matches.add(null);
+        for (String propertyName : propertyNames) {
+            for (String delimiter : delimiters) {
+                String pattern = toPattern(propertyName, delimiter);
+                int state = INITIAL_STATE;
+                for (int i = 0; i < pattern.length(); i++) {
+                    Integer target = transitions.get(state).get(pattern.charAt(i));
+                    if (target == null) {
+                        target = transitions.size();
+                        transitions.add(new TreeMap<Character, Integer>());
+                        matches.add(null);
+                        transitions.get(state).put(pattern.charAt(i), target);
+                    }
+                    state = target;
+                }
+                if (matches.get(state) == null) {
+                    matches.set(state, new ArrayList<String>(1));
+                }
+                matches.get(state).add(propertyName);
+            }
+        }
+        int states = transitions.size();
+        labels = new char[states][];
+        targets = new int[states][];
+        failures = new int[states];
+        outputs = new String[states][];
+        for (int state = 0; state < states; state++) {
+            Map<Character, Integer> stateTransitions = transitions.get(state);
+            labels[state] = new char[stateTransitions.size()];
+            targets[state] = new int[stateTransitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : stateTransitions.entrySet()) {
+                labels[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+        }
+        // Breadth first, so the failure state of each state is complete before its children need it
+        LinkedList<Integer> queue = new LinkedList<Integer>(transitions.get(INITIAL_STATE).values());
+        while (!queue.isEmpty()) {
+            int state = queue.removeFirst();
+            for (int i = 0; i < labels[state].length; i++) {
+                int target = targets[state][i];
+                int failure = state == INITIAL_STATE ? INITIAL_STATE : next(failures[state], labels[state][i]);
+                failures[target] = failure;
+                // A pattern ending at the failure state also ends at this state. Ex: ${a} ends where @${a} does
+                if (matches.get(failure) != null) {
+                    if (matches.get(target) == null) {
+                        matches.set(target, new ArrayList<String>(1));
+                    }
+                    matches.get(target).addAll(matches.get(failure));
+                }
+                queue.add(target);
+            }
+        }
+        for (int state = 0; state < states; state++) {
+            if (matches.get(state) != null) {
+                outputs[state] = matches.get(state).toArray(new String[matches.get(state).size()]);
+            }
+        }
+    }
+
+    private static String toPattern(String propertyName, String delimiter) {
+        int wildcard = delimiter.indexOf('*');
+        if (wildcard < 0) {
+            return delimiter + propertyName + delimiter;
+        }
+        return delimiter.substring(0, wildcard) + propertyName + delimiter.substring(wildcard + 1);
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int i = Arrays.binarySearch(labels[state], c);
+            if (i >= 0) {
+                return targets[state][i];
+            }
+            if (state == INITIAL_STATE) {
+                return INITIAL_STATE;
+            }
+            state = failures[state];
+        }
+    }
+
+    /**
+     * @param chars the text to read
+     * @param start the first character to read
+     * @param length how many characters to read
+     * @param state the state returned by the previous chunk or {@link #INITIAL_STATE}
+     * @param referencedProperties receives the referenced properties
+     * @return the state to read the next chunk of the same text from
+     */
+    public int match(char[] chars, int start, int length, int state, Set<String> referencedProperties) {
+        for (int i = start; i < start + length; i++) {
+            state = next(state, chars[i]);
+            if (outputs[state] != null) {
+                referencedProperties.addAll(Arrays.asList(outputs[state]));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @param text the whole text to read
+     * @param referencedProperties receives the referenced properties
+     */
+    public void match(String text, Set<String> referencedProperties) {
+        int state = INITIAL_STATE;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (outputs[state] != null) {
+                referencedProperties.addAll(Arrays.asList(outputs[state]));
+            }
+        }
+    }
+
+}
@@ -30,21 +30,17 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.w3c.dom.Document;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "readmeChecker")
-public class ReadmeChecker extends AbstractProjectChecker {
+public class ReadmeChecker extends AbstractPomRuleChecker {
 
     private static final String[] README_METADATA = new String[] { "Author:", "Level:", "Technologies:", "Summary:", "Target Product:", "Source:" };
 
-    private String regexPattern;
-    
-    private String folderName;
-
     /*
      * (non-Javadoc)
      * 
@@ -58,18 +54,58 @@ public class ReadmeChecker extends AbstractProjectChecker {
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#getInputFiles(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext)
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        folderName = project.getBasedir().getName() + ":";
-        setupRegexPattern();
-        File readme = new File(project.getBasedir(), "README.md");
-        if (readme.exists()) {
-           checkReadmeFile(readme, results);
-        }
+    protected List<File> getInputFiles(MavenProject project, CheckContext checkContext) {
+        List<File> files = super.getInputFiles(project, checkContext);
+        files.add(new File(project.getBasedir(), "README.md"));
+        return files;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#getReadFiles(org.apache.maven.project.MavenProject)
+     */
+    @Override
+    protected List<File> getReadFiles(MavenProject project) {
+        List<File> files = super.getReadFiles(project);
+        files.add(new File(project.getBasedir(), "README.md"));
+        return files;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
+     */
+    @Override
+    public String[] getSubscribedPaths() {
+        return new String[0];
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) {
+        return new PomElementHandler() {
+
+            // Only the README.md is checked, so no pom.xml element is needed
+            @Override
+            public void endDocument() throws Exception {
+                String folderName = project.getBasedir().getName() + ":";
+                File readme = new File(project.getBasedir(), "README.md");
+                if (readme.exists()) {
+                    checkReadmeFile(readme, folderName, results);
+                }
+            }
+        };
     }
 
     /**
@@ -77,25 +113,26 @@ public class ReadmeChecker extends AbstractProjectChecker {
      * 
      * Format: metadata1:|metadata2:|metadata3:
      * 
-     * @param string
+     * @param folderName
+     * @return the regex pattern
      */
-    private void setupRegexPattern() {
+    private String setupRegexPattern(String folderName) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < README_METADATA.length; i++) {
             String metadata = README_METADATA[i];
             sb.append(metadata + "|");
         }
         sb.append(folderName);
-        regexPattern = sb.toString();
+        return sb.toString();
     }
 
     /**
      * Check if the file contains all defined metadata
      */
-    private void checkReadmeFile(File readme, Map<String, List<Violation>> results) throws IOException {
+    private void checkReadmeFile(File readme, String folderName, Map<String, List<Violation>> results) throws IOException {
         BufferedReader br = new BufferedReader(new FileReader(readme));
         try {
-            Pattern p = Pattern.compile(regexPattern);
+            Pattern p = Pattern.compile(setupRegexPattern(folderName));
             List<String> usedPatterns = new ArrayList<String>();
             while (br.ready()) {
                 String line = br.readLine();
@@ -107,12 +144,12 @@ public class ReadmeChecker extends AbstractProjectChecker {
             for (String metadata: README_METADATA){
                 if (!usedPatterns.contains(metadata)){
                     String msg = "File doesn't containt [%s] metadata";
-                    addViolation(readme, results, 3, String.format(msg, metadata));
+                    addViolation(readme, results, 3, msg, metadata);
                 }
             }
             if (!usedPatterns.contains(folderName)){
-                String msg = "Readme title doesn't match the folder name: "  + folderName;
-                addViolation(readme, results, 1, msg);
+                String msg = "Readme title doesn't match the folder name: %s";
+                addViolation(readme, results, 1, msg, folderName);
             }
         } finally {
             if (br != null) {
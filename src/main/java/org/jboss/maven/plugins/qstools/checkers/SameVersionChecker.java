@@ -16,75 +16,81 @@
  */
 package org.jboss.maven.plugins.qstools.checkers;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.xpath.XPathConstants;
-
-import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
 import org.jboss.maven.plugins.qstools.QSChecker;
-import org.jboss.maven.plugins.qstools.QSCheckerException;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
+import org.jboss.maven.plugins.qstools.xml.PomElementHandler;
 
 /**
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "SameVersionChecker")
-public class SameVersionChecker extends AbstractProjectChecker {
+public class SameVersionChecker extends AbstractPomRuleChecker {
 
-    private String rootVersion;
+    private static final String VERSION_PATH = "/project/version";
 
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#check(org.apache.maven.project.MavenProject,
-     * org.apache.maven.execution.MavenSession, java.util.List, org.apache.maven.plugin.logging.Log)
+     * @see org.jboss.maven.plugins.qstools.QSChecker#getCheckerDescription()
      */
     @Override
-    public Map<String, List<Violation>> check(MavenProject project, MavenSession mavenSession, List<MavenProject> reactorProjects, Log log) throws QSCheckerException {
-        try {
-            Document doc = PositionalXMLReader.readXML(new FileInputStream(project.getFile()));
-            Node versionNode = (Node) getxPath().evaluate("/project/version", doc, XPathConstants.NODE);
-            rootVersion = versionNode.getTextContent();
-        } catch (Exception e) {
-            throw new QSCheckerException(e);
-        }
-        return super.check(project, mavenSession, reactorProjects, log);
+    public String getCheckerDescription() {
+        return "Check if all modules uses the same version";
     }
 
     /*
      * (non-Javadoc)
      * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#getCheckerDescription()
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#getInputFiles(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext)
      */
     @Override
-    public String getCheckerDescription() {
-        return "Check if all modules uses the same version";
+    protected List<File> getInputFiles(MavenProject project, CheckContext checkContext) {
+        List<File> files = super.getInputFiles(project, checkContext);
+        files.add(checkContext.getMavenSession().getTopLevelProject().getFile());
+        return files;
     }
 
     /*
      * (non-Javadoc)
      * 
-     * @see
-     * org.jboss.maven.plugins.qstools.checkers.AbstractProjectChecker#processProject(org.apache.maven.project.MavenProject,
-     * org.w3c.dom.Document, java.util.Map)
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#getSubscribedPaths()
      */
     @Override
-    public void processProject(MavenProject project, Document doc, Map<String, List<Violation>> results) throws Exception {
-        Node versionNode = (Node) getxPath().evaluate("/project/version", doc, XPathConstants.NODE);
-        if (versionNode != null && !versionNode.getTextContent().equals(rootVersion)){
-            int lineNumber = getLineNumberFromNode(versionNode);
-            String msg = "This project uses a version [%s] different from the root version [%s]";
-            addViolation(project.getFile(), results, lineNumber, String.format(msg, versionNode.getTextContent(), rootVersion));
-        }
+    public String[] getSubscribedPaths() {
+        return new String[] { VERSION_PATH };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.jboss.maven.plugins.qstools.checkers.AbstractPomRuleChecker#createHandler(org.apache.maven.project.MavenProject,
+     * org.jboss.maven.plugins.qstools.checkers.CheckContext, java.util.Map)
+     */
+    @Override
+    protected PomElementHandler createHandler(final MavenProject project, final CheckContext checkContext, final Map<String, List<Violation>> results) throws Exception {
+        // Compare against the reactor top level project (already streamed and cached)
+        List<PomElement> rootVersions = getPomCache().getElements(checkContext.getMavenSession().getTopLevelProject(), VERSION_PATH);
+        final String rootVersion = rootVersions.isEmpty() ? null : rootVersions.get(0).getText();
+        return new PomElementHandler() {
+
+            @Override
+            public void element(PomElement versionElement) {
+                if (rootVersion != null && !versionElement.getText().equals(rootVersion)) {
+                    int lineNumber = versionElement.getLineNumber();
+                    String msg = "This project uses a version [%s] different from the root version [%s]";
+                    addViolation(project.getFile(), results, lineNumber, msg, versionElement.getText(), rootVersion);
+                }
+            }
+        };
     }
 
 }
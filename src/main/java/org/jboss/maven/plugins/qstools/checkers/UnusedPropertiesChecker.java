@@ -16,7 +16,11 @@
  */
 package org.jboss.maven.plugins.qstools.checkers;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,58 +28,60 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.regex.Pattern;
-
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.jboss.maven.plugins.qstools.IncrementalCache;
+import org.jboss.maven.plugins.qstools.PomCache;
 import org.jboss.maven.plugins.qstools.QSChecker;
 import org.jboss.maven.plugins.qstools.QSCheckerException;
+import org.jboss.maven.plugins.qstools.RunMetrics;
 import org.jboss.maven.plugins.qstools.Violation;
-import org.jboss.maven.plugins.qstools.xml.PositionalXMLReader;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.jboss.maven.plugins.qstools.ViolationList;
+import org.jboss.maven.plugins.qstools.xml.PomElement;
 
 /**
+ * Finds the properties declared in the reactor that are never used.
+ *
+ * The declarations are read first, then each pom.xml and each filtered resource is read once by a
+ * {@link PropertyReferenceMatcher} looking for all the declared properties at the same time. A property is used when
+ * any text or attribute value of a pom.xml references it, even inside a longer value, or when a filtered resource
+ * references it with the default maven-resources-plugin delimiters.
+ *
  * @author Rafael Benevides
  * 
  */
 @Component(role = QSChecker.class, hint = "unusedPropertiesChecker")
 public class UnusedPropertiesChecker implements QSChecker {
 
-    private Map<String, PomInformation> declaredProperties = new HashMap<String, PomInformation>();
+    /**
+     * The declared properties, read in the same streaming pass as the pom.xml values
+     */
+    public static final String PROPERTIES_PATH = "/project/properties/*";
 
-    private Set<String> usedProperties = new HashSet<String>();
+    /**
+     * The expression delimiters replaced in a pom.xml
+     */
+    private static final String[] POM_DELIMITERS = { "${*}" };
 
-    protected XPath xPath = XPathFactory.newInstance().newXPath();
+    /**
+     * The default delimiters of the maven-resources-plugin
+     */
+    private static final String[] RESOURCE_DELIMITERS = { "${*}", "@" };
 
-    private int violationsQtd;
+    @Requirement
+    private PomCache pomCache;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#getViolatonsQtd()
-     */
-    @Override
-    public int getViolatonsQtd() {
-        return violationsQtd;
-    }
+    @Requirement
+    private IncrementalCache incrementalCache;
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.jboss.maven.plugins.qstools.QSChecker#resetViolationsQtd()
-     */
-    @Override
-    public void resetViolationsQtd() {
-        violationsQtd = 0;
-    }
+    @Requirement
+    private RunMetrics runMetrics;
 
     /*
      * (non-Javadoc)
@@ -96,55 +102,151 @@ public class UnusedPropertiesChecker implements QSChecker {
     @Override
     public Map<String, List<Violation>> check(MavenProject project, MavenSession mavenSession, List<MavenProject> reactorProjects, Log log) throws QSCheckerException {
         Map<String, List<Violation>> results = new TreeMap<String, List<Violation>>();
+        // Declarations and uses are only kept during this check
+        Map<String, PomInformation> declaredProperties = new HashMap<String, PomInformation>();
+        Set<String> usedProperties = new HashSet<String>();
         try {
-            // iterate over all reactor projects to find what properties was declared and what was really used
+            Map<MavenProject, List<File>> filteredResources = new HashMap<MavenProject, List<File>>();
             for (MavenProject mavenProject : reactorProjects) {
-                Document doc = PositionalXMLReader.readXML(new FileInputStream(mavenProject.getFile()));
-                NodeList propertiesNodes = (NodeList) xPath.evaluate("/project/properties/*", doc, XPathConstants.NODESET);
-                NodeList allNodes = (NodeList) xPath.evaluate("//*", doc, XPathConstants.NODESET);
-                // find all declared properties
-                for (int x = 0; x < propertiesNodes.getLength(); x++) {
-                    Node property = propertiesNodes.item(x);
-                    String propertyName = property.getNodeName();
-                    int lineNumber = Integer.parseInt((String) property.getUserData(PositionalXMLReader.LINE_NUMBER_KEY_NAME));
-                    PomInformation pi = new PomInformation(mavenProject, lineNumber);
-                    declaredProperties.put(propertyName, pi);
+                filteredResources.put(mavenProject, getFilteredResources(mavenProject));
+            }
+            String hash = null;
+            if (incrementalCache.isEnabled()) {
+                // Properties are declared and used across the reactor, so any pom.xml or filtered resource change
+                // checks all of them again
+                List<File> files = new ArrayList<File>();
+                for (MavenProject mavenProject : reactorProjects) {
+                    files.add(mavenProject.getFile());
+                    files.addAll(filteredResources.get(mavenProject));
                 }
-                // find all uses for properties expression
-                Pattern p = Pattern.compile("\\$\\{\\w+(.\\w+)*(-\\w+)*\\}");
-                for (int x = 0; x < allNodes.getLength(); x++) {
-                    Node node = allNodes.item(x);
-                    String nodeContent = node.getTextContent();
-                    if (p.matcher(nodeContent).matches()) {
-                        String usedProperty = node.getTextContent().replaceAll("[${}]", "");
-                        usedProperties.add(usedProperty);
-                    }
+                hash = incrementalCache.hash(files);
+                Map<String, List<Violation>> cachedResults = incrementalCache.get(getClass(), mavenSession.getExecutionRootDirectory(), hash);
+                if (cachedResults != null) {
+                    return cachedResults;
+                }
+            }
+            // find all declared properties
+            for (MavenProject mavenProject : reactorProjects) {
+                for (PomElement property : pomCache.getElements(mavenProject, PROPERTIES_PATH)) {
+                    declaredProperties.put(property.getName(), new PomInformation(mavenProject, property.getLineNumber()));
+                }
+            }
+            Set<String> checkedProperties = new HashSet<String>();
+            for (String declared : declaredProperties.keySet()) {
+                if (!declared.startsWith("project")) { // Escape project configuration
+                    checkedProperties.add(declared);
+                }
+            }
+            // find all uses of the declared properties, until all of them were found
+            PropertyReferenceMatcher pomMatcher = new PropertyReferenceMatcher(checkedProperties, POM_DELIMITERS);
+            PropertyReferenceMatcher resourceMatcher = new PropertyReferenceMatcher(checkedProperties, RESOURCE_DELIMITERS);
+            for (MavenProject mavenProject : reactorProjects) {
+                if (usedProperties.size() == checkedProperties.size()) {
+                    break;
+                }
+                long start = System.nanoTime();
+                for (String value : pomCache.getValues(mavenProject)) {
+                    pomMatcher.match(value, usedProperties);
+                }
+                addFile(mavenProject.getFile(), mavenSession, start);
+                for (File resource : filteredResources.get(mavenProject)) {
+                    start = System.nanoTime();
+                    matchFile(resourceMatcher, resource, getEncoding(mavenProject), usedProperties);
+                    addFile(resource, mavenSession, start);
                 }
             }
             // search if all declared properties have been used
             for (String declared : declaredProperties.keySet()) {
-                if (!declared.startsWith("project") && // Escape project configuration
-                    !usedProperties.contains(declared)) {
+                if (checkedProperties.contains(declared) && !usedProperties.contains(declared)) {
                     PomInformation pomInformation = declaredProperties.get(declared);
                     // Get relative path based on maven work dir
-                    String fileAsString = pomInformation.getProject().getFile().getAbsolutePath().replaceAll((mavenSession.getExecutionRootDirectory() + "/"), "");
-                    if (results.get(fileAsString) == null) {
-                        results.put(fileAsString, new ArrayList<Violation>());
+                    String fileAsString = AbstractProjectChecker.getRelativePath(pomInformation.getProject().getFile(), mavenSession.getExecutionRootDirectory());
+                    ViolationList violations = (ViolationList) results.get(fileAsString);
+                    if (violations == null) {
+                        violations = new ViolationList(getClass());
+                        results.put(fileAsString, violations);
                     }
                     String msg = "Property [%s] was declared but was never used";
-                    results.get(fileAsString).add(new Violation(getClass(), pomInformation.getLine(), String.format(msg, declared)));
+                    violations.add(pomInformation.getLine(), msg, declared);
                 }
             }
             if (results.size() > 0) {
-                violationsQtd = results.size();
                 log.info("There are " + results.size() + " checkers errors");
             }
+            if (hash != null) {
+                incrementalCache.put(getClass(), mavenSession.getExecutionRootDirectory(), hash, results);
+            }
         } catch (Exception e) {
             throw new QSCheckerException(e);
         }
         return results;
     }
 
+    private void matchFile(PropertyReferenceMatcher matcher, File file, Charset encoding, Set<String> usedProperties) throws Exception {
+        Reader reader = new InputStreamReader(new FileInputStream(file), encoding);
+        try {
+            char[] buffer = new char[8192];
+            int state = PropertyReferenceMatcher.INITIAL_STATE;
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                state = matcher.match(buffer, 0, read, state, usedProperties);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void addFile(File file, MavenSession mavenSession, long start) {
+        runMetrics.get(getClass()).addFile(AbstractProjectChecker.getRelativePath(file, mavenSession.getExecutionRootDirectory()), System.nanoTime() - start,
+            file.length());
+    }
+
+    /**
+     * @return the resource files of the project filtered by the maven-resources-plugin
+     */
+    private List<File> getFilteredResources(MavenProject project) {
+        List<Resource> resources = new ArrayList<Resource>(project.getResources());
+        resources.addAll(project.getTestResources());
+        List<File> files = new ArrayList<File>();
+        for (Resource resource : resources) {
+            if (!resource.isFiltering() || resource.getDirectory() == null) {
+                continue;
+            }
+            File directory = new File(resource.getDirectory());
+            if (!directory.isAbsolute()) {
+                directory = new File(project.getBasedir(), resource.getDirectory());
+            }
+            if (!directory.isDirectory()) {
+                continue;
+            }
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir(directory);
+            if (!resource.getIncludes().isEmpty()) {
+                scanner.setIncludes(resource.getIncludes().toArray(new String[resource.getIncludes().size()]));
+            }
+            if (!resource.getExcludes().isEmpty()) {
+                scanner.setExcludes(resource.getExcludes().toArray(new String[resource.getExcludes().size()]));
+            }
+            scanner.addDefaultExcludes();
+            scanner.scan();
+            for (String includedFile : scanner.getIncludedFiles()) {
+                files.add(new File(directory, includedFile));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the encoding the maven-resources-plugin reads the resources with
+     */
+    private Charset getEncoding(MavenProject project) {
+        String encoding = project.getProperties().getProperty("project.build.sourceEncoding");
+        if (encoding != null && Charset.isSupported(encoding)) {
+            return Charset.forName(encoding);
+        }
+        return Charset.defaultCharset();
+    }
+
     private class PomInformation {
         private MavenProject project;
 
@@ -0,0 +1,280 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.maven;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A sorted list of groupId:artifactId:version keys that can answer if an artifact is in a repository without
+ * resolving it.
+ *
+ * The keys are stored in blocks of {@link #BLOCK_SIZE}. The first key of each block is stored whole and the others
+ * only store what differs from the previous key. A lookup memory maps the file, binary searches the blocks first keys
+ * and reads a single block.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class CentralIndex {
+
+    public static final String INDEX = "qstools.central.index";
+
+    private static final int MAGIC = 0x51534349;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer buffer;
+
+    private final int keyCount;
+
+    private final int blockCount;
+
+    private final int blockOffsetsPosition;
+
+    private CentralIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a Maven Central index");
+        }
+        keyCount = buffer.getInt();
+        blockCount = buffer.getInt();
+        blockOffsetsPosition = buffer.position();
+    }
+
+    /**
+     * Memory map an index file
+     */
+    public static CentralIndex open(File indexFile) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r");
+        try {
+            return new CentralIndex(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length()));
+        } catch (IOException e) {
+            throw new IOException(indexFile + ": " + e.getMessage());
+        } finally {
+            // The mapping stays valid after the channel is closed
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @return how many artifacts are in the index
+     */
+    public int size() {
+        return keyCount;
+    }
+
+    /**
+     * @return true if the artifact is in the index
+     */
+    public boolean contains(String groupId, String artifactId, String version) {
+        return contains(groupId + ':' + artifactId + ':' + version);
+    }
+
+    /**
+     * @param key groupId:artifactId:version
+     * @return true if the artifact is in the index
+     */
+    public boolean contains(String key) {
+        // Each lookup reads its own view, so concurrent lookups don't share the buffer position
+        ByteBuffer view = buffer.duplicate();
+        // Find the last block whose first key isn't after the key
+        int low = 0;
+        int high = blockCount - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            view.position(view.getInt(blockOffsetsPosition + middle * 4));
+            readVarInt(view);
+            int comparison = readSuffix(view).compareTo(key);
+            if (comparison == 0) {
+                return true;
+            } else if (comparison < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0) {
+            return false;
+        }
+        view.position(view.getInt(blockOffsetsPosition + block * 4));
+        int keysInBlock = Math.min(BLOCK_SIZE, keyCount - block * BLOCK_SIZE);
+        String previous = "";
+        for (int i = 0; i < keysInBlock; i++) {
+            int shared = readVarInt(view);
+            String current = previous.substring(0, shared) + readSuffix(view);
+            int comparison = current.compareTo(key);
+            if (comparison >= 0) {
+                return comparison == 0;
+            }
+            previous = current;
+        }
+        return false;
+    }
+
+    /**
+     * Write an index with the given keys
+     *
+     * @param indexFile where the index is written
+     * @param keys groupId:artifactId:version keys
+     */
+    public static void write(File indexFile, SortedSet<String> keys) throws IOException {
+        List<String> sortedKeys = new ArrayList<String>(keys);
+        int blockCount = (sortedKeys.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        DataOutputStream blocksOut = new DataOutputStream(blocks);
+        int[] blockOffsets = new int[blockCount];
+        int headerSize = 16 + blockCount * 4;
+        String previous = "";
+        for (int i = 0; i < sortedKeys.size(); i++) {
+            String key = sortedKeys.get(i);
+            int shared = 0;
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = headerSize + blocksOut.size();
+            } else {
+                int max = Math.min(previous.length(), key.length());
+                while (shared < max && previous.charAt(shared) == key.charAt(shared)) {
+                    shared++;
+                }
+            }
+            writeVarInt(blocksOut, shared);
+            byte[] suffix = key.substring(shared).getBytes("UTF-8");
+            writeVarInt(blocksOut, suffix.length);
+            blocksOut.write(suffix);
+            previous = key;
+        }
+        blocksOut.close();
+
+        indexFile.getAbsoluteFile().getParentFile().mkdirs();
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(indexFile));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(sortedKeys.size());
+            out.writeInt(blockCount);
+            for (int blockOffset : blockOffsets) {
+                out.writeInt(blockOffset);
+            }
+            blocks.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Read the keys of a repository directory (groupId/path/artifactId/version/artifactId-version.pom) or of a text
+     * file with one groupId:artifactId:version per line
+     *
+     * @return the sorted keys
+     */
+    public static SortedSet<String> readKeys(File source) throws IOException {
+        SortedSet<String> keys = new TreeSet<String>();
+        if (source.isDirectory()) {
+            readRepositoryKeys(source, new ArrayList<String>(), keys);
+        } else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() > 0 && !line.startsWith("#")) {
+                        if (line.split(":").length != 3) {
+                            throw new IOException(source + ": expected groupId:artifactId:version but found " + line);
+                        }
+                        keys.add(line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return keys;
+    }
+
+    private static void readRepositoryKeys(File directory, List<String> path, SortedSet<String> keys) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                path.add(file.getName());
+                readRepositoryKeys(file, path, keys);
+                path.remove(path.size() - 1);
+            } else if (path.size() >= 3 && file.getName().endsWith(".pom")) {
+                String version = path.get(path.size() - 1);
+                String artifactId = path.get(path.size() - 2);
+                if (file.getName().equals(artifactId + '-' + version + ".pom")) {
+                    StringBuilder groupId = new StringBuilder();
+                    for (String segment : path.subList(0, path.size() - 2)) {
+                        groupId.append(groupId.length() == 0 ? "" : ".").append(segment);
+                    }
+                    keys.add(groupId + ":" + artifactId + ":" + version);
+                }
+            }
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer view) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = view.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String readSuffix(ByteBuffer view) {
+        byte[] bytes = new byte[readVarInt(view)];
+        view.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
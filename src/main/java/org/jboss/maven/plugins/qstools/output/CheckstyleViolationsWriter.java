@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.Violation;
+
+/**
+ * Writes the violations in the Checkstyle XML result format, understood by most CI servers.
+ *
+ * Each checker writes its own file elements, so a file with violations from several checkers appears more than once.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class CheckstyleViolationsWriter extends ViolationsWriter {
+
+    public CheckstyleViolationsWriter(File file, File baseDirectory) {
+        super(file, baseDirectory);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeHeader(java.util.List)
+     */
+    @Override
+    protected void writeHeader(List<QSChecker> checkers) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<checkstyle version=\"5.0\">\n");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeViolations(org.jboss.maven.plugins.qstools.QSChecker,
+     * java.lang.String, java.util.List)
+     */
+    @Override
+    protected void writeViolations(QSChecker checker, String fileName, List<Violation> violations) throws IOException {
+        String source = xml(checker.getClass().getName());
+        writer.write("  <file name=\"" + xml(new File(getBaseDirectory(), fileName).getAbsolutePath()) + "\">\n");
+        for (Violation violation : violations) {
+            writer.write("    <error line=\"" + violation.getLineNumber() + "\" severity=\"warning\" message=\"" + xml(violation.getViolationMessage())
+                + "\" source=\"" + source + "\"/>\n");
+        }
+        writer.write("  </file>\n");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeFooter()
+     */
+    @Override
+    protected void writeFooter() throws IOException {
+        writer.write("</checkstyle>\n");
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.Violation;
+
+/**
+ * Writes one JSON object per violation and line. Ex:
+ *
+ * <pre>
+ * {"checker":"TabSpaceChecker","file":"helloworld/pom.xml","line":12,"message":"..."}
+ * </pre>
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class JsonLinesViolationsWriter extends ViolationsWriter {
+
+    public JsonLinesViolationsWriter(File file, File baseDirectory) {
+        super(file, baseDirectory);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeViolations(org.jboss.maven.plugins.qstools.QSChecker,
+     * java.lang.String, java.util.List)
+     */
+    @Override
+    protected void writeViolations(QSChecker checker, String fileName, List<Violation> violations) throws IOException {
+        String prefix = "{\"checker\":" + json(getRuleId(checker)) + ",\"file\":" + json(fileName) + ",\"line\":";
+        for (Violation violation : violations) {
+            writer.write(prefix);
+            writer.write(String.valueOf(violation.getLineNumber()));
+            writer.write(",\"message\":");
+            writer.write(json(violation.getViolationMessage()));
+            writer.write("}\n");
+        }
+    }
+
+}
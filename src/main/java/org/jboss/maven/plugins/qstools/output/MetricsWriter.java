@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.output;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.jboss.maven.plugins.qstools.CheckerMetrics;
+import org.jboss.maven.plugins.qstools.CheckerMetrics.FileTime;
+
+/**
+ * Writes the {@link CheckerMetrics} of a run as a JSON document with one entry per checker, including its slowest
+ * files.
+ * 
+ * @author Rafael Benevides
+ * 
+ */
+public class MetricsWriter {
+
+    private final File file;
+
+    public MetricsWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param checkersMetrics the metrics of each checker, in the checkers order
+     */
+    public void write(Collection<CheckerMetrics> checkersMetrics) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write("{\n  \"checkers\": [");
+            for (Iterator<CheckerMetrics> it = checkersMetrics.iterator(); it.hasNext();) {
+                CheckerMetrics metrics = it.next();
+                writer.write("\n    {\"checker\": " + ViolationsWriter.json(metrics.getChecker().getSimpleName()));
+                writer.write(", \"wallTimeMillis\": " + metrics.getWallTimeMillis());
+                writer.write(", \"cpuTimeMillis\": " + metrics.getCpuTimeMillis());
+                writer.write(", \"files\": " + metrics.getFiles());
+                writer.write(", \"bytesRead\": " + metrics.getBytes());
+                writer.write(", \"resolutions\": " + metrics.getResolutions());
+                writer.write(", \"violations\": " + metrics.getViolations());
+                writer.write(",\n      \"slowestFiles\": [");
+                for (Iterator<FileTime> files = metrics.getSlowestFiles().iterator(); files.hasNext();) {
+                    FileTime fileTime = files.next();
+                    writer.write("{\"file\": " + ViolationsWriter.json(fileTime.getFile()) + ", \"millis\": " + fileTime.getMillis() + "}");
+                    writer.write(files.hasNext() ? ", " : "");
+                }
+                writer.write("]}");
+                writer.write(it.hasNext() ? "," : "\n  ");
+            }
+            writer.write("]\n}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the written file
+     */
+    public File getFile() {
+        return file;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.Violation;
+
+/**
+ * Writes the violations as a SARIF 2.1.0 log with a single run. The rules are written first, so each result is
+ * written as soon as its checker finishes.
+ *
+ * The result locations are relative to the SRCROOT base, which points to the base directory.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class SarifViolationsWriter extends ViolationsWriter {
+
+    private boolean firstResult = true;
+
+    public SarifViolationsWriter(File file, File baseDirectory) {
+        super(file, baseDirectory);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeHeader(java.util.List)
+     */
+    @Override
+    protected void writeHeader(List<QSChecker> checkers) throws IOException {
+        writer.write("{\n  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",\n  \"version\": \"2.1.0\",\n  \"runs\": [{\n");
+        writer.write("    \"tool\": {\"driver\": {\"name\": \"qstools\", \"rules\": [");
+        for (int i = 0; i < checkers.size(); i++) {
+            QSChecker checker = checkers.get(i);
+            writer.write(i == 0 ? "\n" : ",\n");
+            writer.write("      {\"id\": " + json(getRuleId(checker)) + ", \"shortDescription\": {\"text\": " + json(checker.getCheckerDescription()) + "}}");
+        }
+        writer.write("\n    ]}},\n");
+        String baseUri = getBaseDirectory().getAbsoluteFile().toURI().toString();
+        writer.write("    \"originalUriBaseIds\": {\"SRCROOT\": {\"uri\": " + json(baseUri) + "}},\n");
+        writer.write("    \"results\": [");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeViolations(org.jboss.maven.plugins.qstools.QSChecker,
+     * java.lang.String, java.util.List)
+     */
+    @Override
+    protected void writeViolations(QSChecker checker, String fileName, List<Violation> violations) throws IOException {
+        String ruleId = json(getRuleId(checker));
+        String location = "{\"uri\": " + json(fileName.replace(File.separatorChar, '/')) + ", \"uriBaseId\": \"SRCROOT\"}";
+        for (Violation violation : violations) {
+            writer.write(firstResult ? "\n" : ",\n");
+            firstResult = false;
+            writer.write("      {\"ruleId\": " + ruleId + ", \"level\": \"warning\", \"message\": {\"text\": " + json(violation.getViolationMessage()) + "}");
+            writer.write(", \"locations\": [{\"physicalLocation\": {\"artifactLocation\": " + location);
+            // SARIF lines start at 1. Violations of the whole file have no region
+            if (violation.getLineNumber() > 0) {
+                writer.write(", \"region\": {\"startLine\": " + violation.getLineNumber() + "}");
+            }
+            writer.write("}}]}");
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.jboss.maven.plugins.qstools.output.ViolationsWriter#writeFooter()
+     */
+    @Override
+    protected void writeFooter() throws IOException {
+        writer.write("\n    ]\n  }]\n}\n");
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.output;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.maven.plugins.qstools.QSChecker;
+import org.jboss.maven.plugins.qstools.Violation;
+
+/**
+ * Writes the violations to a machine readable file, one checker at a time, so the results reach the disk as soon as
+ * each checker finishes.
+ *
+ * The file names are relative to the base directory, as returned by the checkers.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public abstract class ViolationsWriter {
+
+    /**
+     * The supported formats, as used by the qstools.formats parameter
+     */
+    public static final String JSONL = "jsonl";
+
+    public static final String SARIF = "sarif";
+
+    public static final String CHECKSTYLE = "checkstyle";
+
+    private final File file;
+
+    private final File baseDirectory;
+
+    protected Writer writer;
+
+    protected ViolationsWriter(File file, File baseDirectory) {
+        this.file = file;
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * @param format one of {@link #JSONL}, {@link #SARIF} or {@link #CHECKSTYLE}
+     * @param directory where the file is written
+     * @param baseDirectory the directory the violation file names are relative to
+     * @return a writer for the given format
+     */
+    public static ViolationsWriter create(String format, File directory, File baseDirectory) {
+        if (JSONL.equals(format)) {
+            return new JsonLinesViolationsWriter(new File(directory, "qstools-result.jsonl"), baseDirectory);
+        }
+        if (SARIF.equals(format)) {
+            return new SarifViolationsWriter(new File(directory, "qstools-result.sarif"), baseDirectory);
+        }
+        if (CHECKSTYLE.equals(format)) {
+            return new CheckstyleViolationsWriter(new File(directory, "qstools-checkstyle-result.xml"), baseDirectory);
+        }
+        throw new IllegalArgumentException("Unknown output format: " + format + ". Use " + JSONL + ", " + SARIF + " or " + CHECKSTYLE);
+    }
+
+    /**
+     * Create the file and write what comes before the violations
+     *
+     * @param checkers all checkers that will be written
+     */
+    public void start(List<QSChecker> checkers) throws IOException {
+        file.getParentFile().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        writeHeader(checkers);
+    }
+
+    /**
+     * Write the violations of a finished checker and flush them to the file
+     *
+     * @param checker the checker that found the violations
+     * @param violations the violations of each file
+     */
+    public synchronized void write(QSChecker checker, Map<String, List<Violation>> violations) throws IOException {
+        for (Map.Entry<String, List<Violation>> entry : violations.entrySet()) {
+            writeViolations(checker, entry.getKey(), entry.getValue());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write what comes after the violations and close the file
+     */
+    public synchronized void end() throws IOException {
+        try {
+            writeFooter();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Close the file without completing it. Used when a checker fails
+     */
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * @return the written file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the directory the violation file names are relative to
+     */
+    protected File getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    protected void writeHeader(List<QSChecker> checkers) throws IOException {
+    }
+
+    protected abstract void writeViolations(QSChecker checker, String fileName, List<Violation> violations) throws IOException;
+
+    protected void writeFooter() throws IOException {
+    }
+
+    /**
+     * @return the checker name used as rule id
+     */
+    protected static String getRuleId(QSChecker checker) {
+        return checker.getClass().getSimpleName();
+    }
+
+    /**
+     * @return the text as a quoted JSON string
+     */
+    protected static String json(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * @return the text escaped to be used as XML attribute value
+     */
+    protected static String xml(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                case '\n':
+                case '\r':
+                case '\t':
+                    // Kept as references, otherwise they become spaces inside attributes
+                    sb.append("&#").append((int) c).append(';');
+                    break;
+                default:
+                    // The other control characters aren't allowed in XML 1.0
+                    sb.append(c < 0x20 ? ' ' : c);
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A pom.xml element captured by {@link PomStreamReader}, with its line number and direct children.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class PomElement {
+
+    private final String name;
+
+    private final String path;
+
+    private final int lineNumber;
+
+    private final int columnNumber;
+
+    private StringBuilder textBuffer;
+
+    private String text;
+
+    private List<PomElement> children;
+
+    PomElement(String name, String path, int lineNumber, int columnNumber) {
+        this.name = name;
+        this.path = path;
+        this.lineNumber = lineNumber;
+        this.columnNumber = columnNumber;
+    }
+
+    void appendText(char[] chars, int start, int length) {
+        if (textBuffer == null) {
+            textBuffer = new StringBuilder(length);
+        }
+        textBuffer.append(chars, start, length);
+    }
+
+    void addChild(PomElement child) {
+        if (children == null) {
+            children = new ArrayList<PomElement>(4);
+        }
+        children.add(child);
+    }
+
+    void setText(String text) {
+        this.text = text;
+    }
+
+    void end() {
+        text = textBuffer == null ? "" : textBuffer.toString();
+        textBuffer = null;
+    }
+
+    /**
+     * @return the element name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the absolute element path. Ex: /project/dependencies/dependency
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the line where the element start tag ends
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the column where the element start tag ends
+     */
+    public int getColumnNumber() {
+        return columnNumber;
+    }
+
+    /**
+     * @return the text directly inside this element
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the direct child elements. Deeper elements are only built when they are subscribed
+     */
+    public List<PomElement> getChildren() {
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return children;
+    }
+
+    /**
+     * @return the first child element with the given name or null if there is none
+     */
+    public PomElement getChild(String childName) {
+        for (PomElement child : getChildren()) {
+            if (child.getName().equals(childName)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the text of the first child element with the given name or null if there is none
+     */
+    public String getChildText(String childName) {
+        PomElement child = getChild(childName);
+        return child == null ? null : child.getText();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("PomElement [path=%s, lineNumber=%s]", path, lineNumber);
+    }
+
+}
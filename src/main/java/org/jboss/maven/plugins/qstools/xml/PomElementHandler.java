@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+/**
+ * Receives the subscribed elements of a pom.xml. Override only the callbacks you need.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public abstract class PomElementHandler {
+
+    /**
+     * Called for each subscribed element, in document order, once the element and its children were read
+     */
+    public void element(PomElement element) throws Exception {
+    }
+
+    /**
+     * Called after all subscribed elements of the document
+     */
+    public void endDocument() throws Exception {
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Element;
+
+/**
+ * The index of a {@link PositionalDocument} seen through its DOM copy: elements indexed by absolute path and by the text
+ * of the coordinate elements (groupId, artifactId and version), so checkers can find them without evaluating
+ * descendant XPath queries over the whole document.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class PomIndex {
+
+    private final PositionalDocument positionalDocument;
+
+    private final Element[] elements;
+
+    PomIndex(PositionalDocument positionalDocument, Element[] elements) {
+        this.positionalDocument = positionalDocument;
+        this.elements = elements;
+    }
+
+    /**
+     * @param path an absolute element path. Ex: /project/dependencies/dependency
+     * @return the elements with the given path, in document order
+     */
+    public List<Element> getElements(String path) {
+        return toElements(positionalDocument.getElementsByPath(path));
+    }
+
+    /**
+     * @param name a coordinate element name: groupId, artifactId or version
+     * @param text the element text
+     * @return the elements with the given name and text, in document order
+     */
+    public List<Element> getElementsByText(String name, String text) {
+        return toElements(positionalDocument.getElementsByText(name, text));
+    }
+
+    private List<Element> toElements(int[] nodes) {
+        List<Element> result = new ArrayList<Element>(nodes.length);
+        for (int node : nodes) {
+            result.add(elements[node]);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Matches element paths against the subscribed paths.
+ *
+ * Supported paths are absolute paths (/project/dependencies/dependency), absolute paths ending with a wildcard
+ * (/project/properties/*) and descendant paths (//finalName or //plugin/artifactId).
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class PomPathMatcher {
+
+    private static final String WILDCARD = "*";
+
+    private final List<String[]> absolutePaths = new ArrayList<String[]>();
+
+    private final List<String[]> descendantPaths = new ArrayList<String[]>();
+
+    public PomPathMatcher(Collection<String> paths) {
+        for (String path : paths) {
+            if (path.startsWith("//")) {
+                descendantPaths.add(path.substring(2).split("/"));
+            } else if (path.startsWith("/")) {
+                absolutePaths.add(path.substring(1).split("/"));
+            } else {
+                throw new IllegalArgumentException("Element paths must start with / or //: " + path);
+            }
+        }
+    }
+
+    public PomPathMatcher(String... paths) {
+        this(Arrays.asList(paths));
+    }
+
+    /**
+     * @param path the element path segments, from the root element
+     * @return true if any subscribed path matches the element
+     */
+    public boolean matches(List<String> path) {
+        for (String[] absolutePath : absolutePaths) {
+            if (absolutePath.length == path.size() && segmentsMatch(absolutePath, path, 0)) {
+                return true;
+            }
+        }
+        for (String[] descendantPath : descendantPaths) {
+            if (descendantPath.length <= path.size() && segmentsMatch(descendantPath, path, path.size() - descendantPath.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path an absolute element path. Ex: /project/dependencies/dependency
+     * @return true if any subscribed path matches the element
+     */
+    public boolean matches(String path) {
+        return matches(Arrays.asList(path.substring(1).split("/")));
+    }
+
+    /**
+     * @param path the element path segments, from the root element
+     * @return false if no element under this path can match, so its subtree can be skipped
+     */
+    public boolean mayMatchBelow(List<String> path) {
+        if (!descendantPaths.isEmpty()) {
+            return true;
+        }
+        for (String[] absolutePath : absolutePaths) {
+            if (absolutePath.length > path.size() && segmentsMatch(absolutePath, path, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare the expected segments with the path segments starting at offset
+     */
+    private boolean segmentsMatch(String[] expected, List<String> path, int offset) {
+        int length = Math.min(expected.length, path.size() - offset);
+        for (int i = 0; i < length; i++) {
+            if (!WILDCARD.equals(expected[i]) && !expected[i].equals(path.get(offset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
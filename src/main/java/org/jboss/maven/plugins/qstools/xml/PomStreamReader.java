@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads a pom.xml in a single StAX pass and hands the subscribed elements to a {@link PomElementHandler}.
+ *
+ * Only the subscribed elements and their direct children are built, so a subscription to /project/build doesn't build
+ * the plugins configuration. Subtrees that can't contain a subscribed element are skipped without creating anything,
+ * unless the text and attribute values of the whole document are collected too.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class PomStreamReader {
+
+    /**
+     * The factories may reuse readers internally, so each thread gets its own
+     */
+    private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+
+        @Override
+        protected XMLInputFactory initialValue() {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            return factory;
+        }
+    };
+
+    public static void read(final InputStream is, PomPathMatcher matcher, PomElementHandler handler) throws Exception {
+        read(is, matcher, handler, null);
+    }
+
+    /**
+     * @param values where every text and attribute value of the document is added, or null to skip them. Whitespace
+     *        only texts aren't added. The text between two tags is a single value, even if a comment splits it
+     */
+    public static void read(final InputStream is, PomPathMatcher matcher, PomElementHandler handler, List<String> values) throws Exception {
+        XMLStreamReader reader = inputFactory.get().createXMLStreamReader(is);
+        try {
+            List<String> path = new ArrayList<String>();
+            // The built element of each open element, or null if it isn't being built
+            List<PomElement> openElements = new ArrayList<PomElement>();
+            // Subscribed elements waiting for the outermost one to be closed, in document order
+            List<PomElement> matchedElements = new ArrayList<PomElement>();
+            int openMatchedElements = 0;
+            int skippedDepth = 0;
+            StringBuilder text = values == null ? null : new StringBuilder();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (values != null) {
+                    collectValue(reader, event, text, values);
+                }
+                if (skippedDepth > 0) {
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        skippedDepth++;
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        skippedDepth--;
+                    }
+                    continue;
+                }
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String name = reader.getLocalName();
+                        path.add(name);
+                        PomElement parent = openElements.isEmpty() ? null : openElements.get(openElements.size() - 1);
+                        boolean matches = matcher.matches(path);
+                        PomElement element = null;
+                        // Subscribed elements are built with their direct children only
+                        if (matches || (parent != null && matchedElements.contains(parent))) {
+                            Location location = reader.getLocation();
+                            element = new PomElement(name, toPath(path), location.getLineNumber(), location.getColumnNumber());
+                            if (parent != null) {
+                                parent.addChild(element);
+                            }
+                            if (matches) {
+                                matchedElements.add(element);
+                                openMatchedElements++;
+                            }
+                        } else if (!matcher.mayMatchBelow(path)) {
+                            path.remove(path.size() - 1);
+                            skippedDepth = 1;
+                            break;
+                        }
+                        openElements.add(element);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!openElements.isEmpty() && openElements.get(openElements.size() - 1) != null) {
+                            openElements.get(openElements.size() - 1).appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        path.remove(path.size() - 1);
+                        PomElement closed = openElements.remove(openElements.size() - 1);
+                        if (closed != null) {
+                            closed.end();
+                            if (matchedElements.contains(closed) && --openMatchedElements == 0) {
+                                for (PomElement matched : matchedElements) {
+                                    handler.element(matched);
+                                }
+                                matchedElements.clear();
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            handler.endDocument();
+        } finally {
+            reader.close();
+            is.close();
+        }
+    }
+
+    /**
+     * Add the attribute values of each element and the text between tags, once the next tag is reached
+     */
+    private static void collectValue(XMLStreamReader reader, int event, StringBuilder text, List<String> values) {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+            case XMLStreamConstants.END_ELEMENT:
+                if (text.length() > 0) {
+                    String value = text.toString();
+                    if (value.trim().length() > 0) {
+                        values.add(value);
+                    }
+                    text.setLength(0);
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        values.add(reader.getAttributeValue(i));
+                    }
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            default:
+                break;
+        }
+    }
+
+    static String toPath(List<String> path) {
+        StringBuilder sb = new StringBuilder();
+        for (String segment : path) {
+            sb.append('/').append(segment);
+        }
+        return sb.toString();
+    }
+
+}
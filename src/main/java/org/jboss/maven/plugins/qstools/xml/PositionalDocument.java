@@ -0,0 +1,416 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.maven.plugins.qstools.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * A read-only positional XML tree. Nodes are int identifiers and their names, texts, links and positions are kept in
+ * arrays, so a parsed pom.xml costs a few arrays instead of a DOM object per node.
+ *
+ * Element names and the text of coordinate elements (groupId, artifactId and version) are interned, since the same
+ * values repeat across all modules. Elements are also indexed by absolute path and by coordinate text.
+ *
+ * Checkers that still need a DOM can use {@link #toDocument()}.
+ *
+ * @author Rafael Benevides
+ *
+ */
+public class PositionalDocument {
+
+    public static final int NONE = -1;
+
+    static final List<String> COORDINATE_ELEMENTS = Arrays.asList("groupId", "artifactId", "version");
+
+    private static final int[] NO_NODES = new int[0];
+
+    /**
+     * DocumentBuilders aren't thread safe, so each thread gets its own
+     */
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>() {
+
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException("Can't create DOM builder.", e);
+            }
+        }
+    };
+
+    private int size;
+
+    // Element name, or null for text nodes
+    private String[] names = new String[64];
+
+    // Text node content, or null for elements
+    private String[] texts = new String[64];
+
+    private int[] parents = new int[64];
+
+    private int[] firstChildren = new int[64];
+
+    private int[] lastChildren = new int[64];
+
+    private int[] nextSiblings = new int[64];
+
+    private int[] lineNumbers = new int[64];
+
+    private int[] columnNumbers = new int[64];
+
+    // Attribute names and values, alternated, of the elements that have any
+    private final Map<Integer, String[]> attributes = new HashMap<Integer, String[]>();
+
+    private final Map<String, IntList> elementsByPath = new HashMap<String, IntList>();
+
+    private final Map<String, IntList> elementsByText = new HashMap<String, IntList>();
+
+    private Document document;
+
+    PositionalDocument() {
+    }
+
+    /**
+     * Append an element as the last child of the given parent
+     *
+     * @return the new element
+     */
+    int addElement(int parent, String name, int lineNumber, int columnNumber) {
+        int node = addNode(parent, name.intern(), null);
+        lineNumbers[node] = lineNumber;
+        columnNumbers[node] = columnNumber;
+        return node;
+    }
+
+    /**
+     * Append a text node as the last child of the given parent
+     */
+    void addText(int parent, String text) {
+        addNode(parent, null, text);
+    }
+
+    /**
+     * Keep the attributes of an element. Few pom.xml elements have any, so they are kept apart from the arrays
+     */
+    void setAttributes(int element, String[] namesAndValues) {
+        attributes.put(element, namesAndValues);
+    }
+
+    private int addNode(int parent, String name, String text) {
+        if (size == names.length) {
+            grow();
+        }
+        int node = size++;
+        names[node] = name;
+        texts[node] = text;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        lastChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        if (parent != NONE) {
+            if (firstChildren[parent] == NONE) {
+                firstChildren[parent] = node;
+            } else {
+                nextSiblings[lastChildren[parent]] = node;
+            }
+            lastChildren[parent] = node;
+        }
+        return node;
+    }
+
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+        columnNumbers = Arrays.copyOf(columnNumbers, capacity);
+    }
+
+    /**
+     * Index a closed element by its path and, for coordinate elements, by its text
+     */
+    void index(int element, String path) {
+        add(elementsByPath, path, element);
+        String name = names[element];
+        if (COORDINATE_ELEMENTS.contains(name)) {
+            String text = getText(element).intern();
+            // Keep the interned value in the text node, so equal values share the same String
+            if (firstChildren[element] != NONE && firstChildren[element] == lastChildren[element]) {
+                texts[firstChildren[element]] = text;
+            }
+            add(elementsByText, name + '=' + text, element);
+        }
+    }
+
+    private void add(Map<String, IntList> index, String key, int element) {
+        IntList elements = index.get(key);
+        if (elements == null) {
+            elements = new IntList();
+            index.put(key, elements);
+        }
+        elements.add(element);
+    }
+
+    /**
+     * Release the spare capacity of the indexes once the document is parsed
+     */
+    void trim() {
+        for (IntList elements : elementsByPath.values()) {
+            elements.trim();
+        }
+        for (IntList elements : elementsByText.values()) {
+            elements.trim();
+        }
+    }
+
+    /**
+     * @return the root element or {@link #NONE} for an empty document
+     */
+    public int getRoot() {
+        return size == 0 ? NONE : 0;
+    }
+
+    /**
+     * @return the number of nodes, elements and texts
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isElement(int node) {
+        return names[node] != null;
+    }
+
+    /**
+     * @return the element name or null for text nodes
+     */
+    public String getName(int node) {
+        return names[node];
+    }
+
+    /**
+     * @return the line where the element start tag ends
+     */
+    public int getLineNumber(int node) {
+        return lineNumbers[node];
+    }
+
+    /**
+     * @return the column where the element start tag ends
+     */
+    public int getColumnNumber(int node) {
+        return columnNumbers[node];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * @return the text directly inside the element, or the content of a text node
+     */
+    public String getText(int node) {
+        if (names[node] == null) {
+            return texts[node];
+        }
+        int first = firstChildren[node];
+        if (first != NONE && nextSiblings[first] == NONE && names[first] == null) {
+            return texts[first];
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int child = first; child != NONE; child = nextSiblings[child]) {
+            if (names[child] == null) {
+                sb.append(texts[child]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the attribute value or null if the element doesn't have it
+     */
+    public String getAttribute(int element, String attributeName) {
+        String[] namesAndValues = attributes.get(element);
+        if (namesAndValues != null) {
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                if (namesAndValues[i].equals(attributeName)) {
+                    return namesAndValues[i + 1];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first child element with the given name or {@link #NONE} if there is none
+     */
+    public int getChild(int node, String childName) {
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            if (childName.equals(names[child])) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param path an absolute element path. Ex: /project/dependencies/dependency
+     * @return the elements with the given path, in document order
+     */
+    public int[] getElementsByPath(String path) {
+        IntList elements = elementsByPath.get(path);
+        return elements == null ? NO_NODES : elements.toArray();
+    }
+
+    /**
+     * @param name a coordinate element name: groupId, artifactId or version
+     * @param text the element text
+     * @return the elements with the given name and text, in document order
+     */
+    public int[] getElementsByText(String name, String text) {
+        if (!COORDINATE_ELEMENTS.contains(name)) {
+            throw new IllegalArgumentException("Only " + COORDINATE_ELEMENTS + " elements are indexed by text: " + name);
+        }
+        IntList elements = elementsByText.get(name + '=' + text);
+        return elements == null ? NO_NODES : elements.toArray();
+    }
+
+    /**
+     * Build the elements matching the given paths, the same way {@link PomStreamReader} does, without reading the file
+     * again
+     *
+     * @return the matching elements with their direct children, in document order
+     */
+    public List<PomElement> getElements(PomPathMatcher matcher) {
+        List<PomElement> matchedElements = new ArrayList<PomElement>();
+        if (size > 0) {
+            addElements(getRoot(), null, false, new ArrayList<String>(), matcher, matchedElements);
+        }
+        return matchedElements;
+    }
+
+    private void addElements(int node, PomElement parent, boolean parentMatches, List<String> path, PomPathMatcher matcher, List<PomElement> matchedElements) {
+        path.add(names[node]);
+        boolean matches = matcher.matches(path);
+        PomElement element = null;
+        // Subscribed elements are built with their direct children only
+        if (matches || parentMatches) {
+            element = new PomElement(names[node], PomStreamReader.toPath(path), lineNumbers[node], columnNumbers[node]);
+            element.setText(getText(node));
+            if (parent != null) {
+                parent.addChild(element);
+            }
+            if (matches) {
+                matchedElements.add(element);
+            }
+        }
+        if (matches || matcher.mayMatchBelow(path)) {
+            for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+                if (names[child] != null) {
+                    addElements(child, element, matches, path, matcher, matchedElements);
+                }
+            }
+        }
+        path.remove(path.size() - 1);
+    }
+
+    /**
+     * The DOM is built on the first call and shared afterwards. Each element has its line number as
+     * {@link PositionalXMLReader#LINE_NUMBER_KEY_NAME} user data and the document has a {@link PomIndex}.
+     *
+     * @return a DOM copy of this document
+     */
+    public synchronized Document toDocument() {
+        if (document == null) {
+            Document doc = documentBuilder.get().newDocument();
+            Element[] elements = new Element[size];
+            for (int node = 0; node < size; node++) {
+                Node parent = parents[node] == NONE ? doc : elements[parents[node]];
+                if (names[node] == null) {
+                    parent.appendChild(doc.createTextNode(texts[node]));
+                } else {
+                    Element element = doc.createElement(names[node]);
+                    String[] namesAndValues = attributes.get(node);
+                    if (namesAndValues != null) {
+                        for (int i = 0; i < namesAndValues.length; i += 2) {
+                            element.setAttribute(namesAndValues[i], namesAndValues[i + 1]);
+                        }
+                    }
+                    element.setUserData(PositionalXMLReader.LINE_NUMBER_KEY_NAME, lineNumbers[node], null);
+                    parent.appendChild(element);
+                    elements[node] = element;
+                }
+            }
+            doc.setUserData(PositionalXMLReader.INDEX_KEY_NAME, new PomIndex(this, elements), null);
+            document = doc;
+        }
+        return document;
+    }
+
+    /**
+     * The elements of an index entry. Most entries have a single element, so the array starts small and doubles
+     */
+    private static class IntList {
+
+        private int[] elements = new int[1];
+
+        private int size;
+
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+
+        void trim() {
+            if (size < elements.length) {
+                elements = Arrays.copyOf(elements, size);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+
+}
@@ -18,17 +18,14 @@ package org.jboss.maven.plugins.qstools.xml;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 import org.xml.sax.Attributes;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
@@ -42,20 +39,40 @@ public class PositionalXMLReader {
 
     public final static String LINE_NUMBER_KEY_NAME = "lineNumber";
 
-    public static Document readXML(final InputStream is) throws IOException, SAXException {
-        final Document doc;
-        SAXParser parser;
-        try {
-            final SAXParserFactory factory = SAXParserFactory.newInstance();
-            parser = factory.newSAXParser();
-            final DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-            final DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
-            doc = docBuilder.newDocument();
-        } catch (final ParserConfigurationException e) {
-            throw new RuntimeException("Can't create SAX parser / DOM builder.", e);
+    public final static String INDEX_KEY_NAME = "pomIndex";
+
+    /**
+     * SAX parsers aren't thread safe, but they can be reused after a parse, so each thread keeps its own
+     */
+    private static final ThreadLocal<SAXParser> saxParser = new ThreadLocal<SAXParser>() {
+
+        @Override
+        protected SAXParser initialValue() {
+            try {
+                return SAXParserFactory.newInstance().newSAXParser();
+            } catch (final ParserConfigurationException e) {
+                throw new RuntimeException("Can't create SAX parser.", e);
+            } catch (final SAXException e) {
+                throw new RuntimeException("Can't create SAX parser.", e);
+            }
         }
+    };
+
+    /**
+     * @return a DOM copy of the XML content. See {@link PositionalDocument#toDocument()}
+     */
+    public static Document readXML(final InputStream is) throws IOException, SAXException {
+        return read(is).toDocument();
+    }
 
-        final Stack<Element> elementStack = new Stack<Element>();
+    /**
+     * @return the XML content as a read-only positional tree
+     */
+    public static PositionalDocument read(final InputStream is) throws IOException, SAXException {
+        final PositionalDocument doc = new PositionalDocument();
+        // Open elements and their absolute paths
+        final List<Integer> elementStack = new ArrayList<Integer>();
+        final List<String> pathStack = new ArrayList<String>();
         final StringBuilder textBuffer = new StringBuilder();
         final DefaultHandler handler = new DefaultHandler() {
             private Locator locator;
@@ -69,24 +86,25 @@ public class PositionalXMLReader {
             @Override
             public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) throws SAXException {
                 addTextIfNeeded();
-                final Element el = doc.createElement(qName);
-                for (int i = 0; i < attributes.getLength(); i++) {
-                    el.setAttribute(attributes.getQName(i), attributes.getValue(i));
+                int parent = elementStack.isEmpty() ? PositionalDocument.NONE : elementStack.get(elementStack.size() - 1);
+                final int el = doc.addElement(parent, qName, this.locator.getLineNumber(), this.locator.getColumnNumber());
+                if (attributes.getLength() > 0) {
+                    String[] namesAndValues = new String[attributes.getLength() * 2];
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        namesAndValues[i * 2] = attributes.getQName(i);
+                        namesAndValues[i * 2 + 1] = attributes.getValue(i);
+                    }
+                    doc.setAttributes(el, namesAndValues);
                 }
-                el.setUserData(LINE_NUMBER_KEY_NAME, String.valueOf(this.locator.getLineNumber()), null);
-                elementStack.push(el);
+                elementStack.add(el);
+                pathStack.add((pathStack.isEmpty() ? "" : pathStack.get(pathStack.size() - 1)) + "/" + qName);
             }
 
             @Override
             public void endElement(final String uri, final String localName, final String qName) {
                 addTextIfNeeded();
-                final Element closedEl = elementStack.pop();
-                if (elementStack.isEmpty()) { // Is this the root element?
-                    doc.appendChild(closedEl);
-                } else {
-                    final Element parentEl = elementStack.peek();
-                    parentEl.appendChild(closedEl);
-                }
+                final int closedEl = elementStack.remove(elementStack.size() - 1);
+                doc.index(closedEl, pathStack.remove(pathStack.size() - 1));
             }
 
             @Override
@@ -97,19 +115,27 @@ public class PositionalXMLReader {
             // Outputs text accumulated under the current node
             private void addTextIfNeeded() {
                 if (textBuffer.length() > 0) {
-                    final Element el = elementStack.peek();
-                    final Node textNode = doc.createTextNode(textBuffer.toString());
-                    el.appendChild(textNode);
+                    final int el = elementStack.get(elementStack.size() - 1);
+                    doc.addText(el, textBuffer.toString());
                     textBuffer.delete(0, textBuffer.length());
                 }
             }
         };
+        SAXParser parser = saxParser.get();
         try {
             parser.parse(is, handler);
         } finally {
+            parser.reset();
             is.close();
         }
-
+        doc.trim();
         return doc;
     }
+
+    /**
+     * @return the index of a document read by this class or null if the document wasn't
+     */
+    public static PomIndex getIndex(Document doc) {
+        return (PomIndex) doc.getUserData(INDEX_KEY_NAME);
+    }
 }